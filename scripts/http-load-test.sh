@@ -0,0 +1,102 @@
+#!/usr/bin/env bash
+#
+# Compare the default server setup with the "http2" profile: bytes on the wire
+# and latency for a 100-row product page, the category list and the category JSON API.
+#
+# Both runs get the same seeded data (categories and products saved over HTTP)
+# and the same quiet logging, so only the server settings differ. Latency comes
+# from h2load (nghttp2) when installed: HTTP/1.1 for the default run, h2c for
+# the tuned one. Without h2load, sequential curl timings are reported instead.
+#
+# Usage: scripts/http-load-test.sh <path-to-jar> [requests] [concurrency]
+# Writes a report next to the jar (http-load-report.txt).
+set -euo pipefail
+
+JAR=$(realpath "$1")
+REQUESTS=${2:-2000}
+CONCURRENCY=${3:-20}
+TARGET=$(dirname "$JAR")
+REPORT="$TARGET/http-load-report.txt"
+PORT=18082
+BASE="http://localhost:$PORT"
+PATHS=("/products?size=100" "/categories?size=100" "/categories/api/all")
+
+COMMON_ARGS=(--server.port=$PORT --spring.jpa.hibernate.ddl-auto=create --spring.jpa.show-sql=false
+    --logging.level.root=WARN --logging.level.com.shoe=INFO --ratelimit.enabled=false)
+
+HAVE_H2LOAD=$(command -v h2load >/dev/null 2>&1 && echo yes || echo no)
+
+start() {
+    local log="$TARGET/http-load.log"
+    java -jar "$JAR" "${COMMON_ARGS[@]}" "$@" > "$log" 2>&1 &
+    PID=$!
+    for _ in $(seq 1 600); do
+        if grep -q "Started SpringProjectApplication" "$log"; then
+            return
+        fi
+        if ! kill -0 "$PID" 2>/dev/null; then
+            echo "application exited during startup, see $log" >&2
+            exit 1
+        fi
+        sleep 0.1
+    done
+    echo "application did not start, see $log" >&2
+    exit 1
+}
+
+stop() {
+    kill "$PID" 2>/dev/null || true
+    wait "$PID" 2>/dev/null || true
+}
+
+seed() {
+    for c in $(seq 1 10); do
+        curl -s -o /dev/null -X POST "$BASE/categories/save" \
+            --data-urlencode "name=Load Category $c" --data-urlencode "description=Seeded for the HTTP load test"
+    done
+    for p in $(seq 1 300); do
+        curl -s -o /dev/null -X POST "$BASE/products/save" \
+            --data-urlencode "code=LOAD-$p" --data-urlencode "name=Load test product $p" \
+            --data-urlencode "price=$((p % 90 + 10)).99" --data-urlencode "category.id=$((p % 10 + 1))"
+    done
+}
+
+# measure <label> <h2load protocol flag or empty>
+measure() {
+    local label=$1 protocol=$2
+    echo "== $label" >> "$REPORT"
+    printf "%-24s %12s %12s %12s\n" "path" "plain bytes" "wire bytes" "mean ms" >> "$REPORT"
+    for path in "${PATHS[@]}"; do
+        local plain wire mean
+        plain=$(curl -s -o /dev/null -w "%{size_download}" "$BASE$path")
+        wire=$(curl -s -o /dev/null -H "Accept-Encoding: gzip" -w "%{size_download}" "$BASE$path")
+        if [ "$HAVE_H2LOAD" = yes ]; then
+            # shellcheck disable=SC2086
+            mean=$(h2load $protocol -n "$REQUESTS" -c "$CONCURRENCY" -H "Accept-Encoding: gzip" "$BASE$path" \
+                | awk '/time for request:/ {print $6}')
+        else
+            mean=$(for _ in $(seq 1 100); do
+                curl -s -o /dev/null -H "Accept-Encoding: gzip" -w "%{time_total}\n" "$BASE$path"
+            done | awk '{sum += $1} END {printf "%.1fms", sum * 1000 / NR}')
+        fi
+        printf "%-24s %12s %12s %12s\n" "$path" "$plain" "$wire" "$mean" >> "$REPORT"
+    done
+    echo >> "$REPORT"
+}
+
+: > "$REPORT"
+echo "requests=$REQUESTS concurrency=$CONCURRENCY h2load=$HAVE_H2LOAD" >> "$REPORT"
+echo >> "$REPORT"
+
+start
+trap stop EXIT
+seed
+measure "default (HTTP/1.1, no compression)" "--h1"
+stop
+
+start --spring.profiles.active=http2
+seed
+measure "http2 profile (h2c, compression, tuned connector)" ""
+stop
+
+cat "$REPORT"
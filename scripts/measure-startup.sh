@@ -0,0 +1,73 @@
+#!/usr/bin/env bash
+#
+# Measure startup time and resident memory of the packaged application,
+# comparing a plain "java -jar" start with the fast-start setup
+# (prod profile, AOT-processed context, CDS archive).
+#
+# Usage: scripts/measure-startup.sh <path-to-jar> [runs]
+# Writes a report next to the jar (startup-report.txt). Linux only (reads /proc).
+set -euo pipefail
+
+JAR=$(realpath "$1")
+RUNS=${2:-5}
+TARGET=$(dirname "$JAR")
+WORK="$TARGET/startup"
+APP="$WORK/app"
+ARCHIVE="$WORK/app.jsa"
+REPORT="$TARGET/startup-report.txt"
+
+# Each configuration starts with its own schema setup, as shipped
+COMMON_ARGS=(--server.port=0)
+
+rm -rf "$WORK" && mkdir -p "$APP"
+(cd "$APP" && jar xf "$JAR")
+CLASSPATH="$APP/BOOT-INF/classes:$(ls "$APP"/BOOT-INF/lib/*.jar | tr '\n' ':')"
+
+# Start the app, wait for the "Started" line, sample RSS, stop it.
+# Prints "<startup seconds> <rss kB>".
+measure() {
+    local log="$WORK/run.log"
+    "$@" > "$log" 2>&1 &
+    local pid=$!
+    for _ in $(seq 1 600); do
+        if grep -q "Started SpringProjectApplication" "$log"; then
+            break
+        fi
+        if ! kill -0 "$pid" 2>/dev/null; then
+            echo "application exited during startup, see $log" >&2
+            exit 1
+        fi
+        sleep 0.1
+    done
+    local seconds rss
+    seconds=$(grep -o "Started SpringProjectApplication in [0-9.]* seconds" "$log" | awk '{print $4}')
+    rss=$(awk '/VmRSS/ {print $2}' "/proc/$pid/status")
+    kill "$pid" && wait "$pid" 2>/dev/null || true
+    echo "$seconds $rss"
+}
+
+# Run a configuration several times and print average startup and RSS
+series() {
+    local name=$1
+    shift
+    local total_s=0 total_rss=0
+    for _ in $(seq 1 "$RUNS"); do
+        read -r s rss < <(measure "$@")
+        total_s=$(echo "$total_s + $s" | bc -l)
+        total_rss=$((total_rss + rss))
+    done
+    printf "%-12s startup %6.3f s   RSS %7d kB   (%d runs)\n" "$name" \
+        "$(echo "$total_s / $RUNS" | bc -l)" $((total_rss / RUNS)) "$RUNS"
+}
+
+# CDS training run: refresh the context, dump the archive, exit
+java -XX:ArchiveClassesAtExit="$ARCHIVE" -Dspring.context.exit=onRefresh -Dspring.aot.enabled=true \
+    -cp "$CLASSPATH" com.shoe.SpringProjectApplication --spring.profiles.active=prod "${COMMON_ARGS[@]}" \
+    > "$WORK/training.log" 2>&1
+
+{
+    echo "Startup measurement $(date -u +%Y-%m-%dT%H:%M:%SZ) on $(java -version 2>&1 | head -1)"
+    series "baseline" java -jar "$JAR" "${COMMON_ARGS[@]}"
+    series "fast-start" java -XX:SharedArchiveFile="$ARCHIVE" -Dspring.aot.enabled=true \
+        -cp "$CLASSPATH" com.shoe.SpringProjectApplication --spring.profiles.active=prod "${COMMON_ARGS[@]}"
+} | tee "$REPORT"
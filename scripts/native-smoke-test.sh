@@ -0,0 +1,80 @@
+#!/usr/bin/env bash
+#
+# Smoke test for the native image: start the binary against in-memory H2,
+# exercise listing, search and save over HTTP, and report startup time and RSS.
+#
+# Usage: scripts/native-smoke-test.sh <path-to-native-binary> [port]
+# Writes a report next to the binary (native-smoke-report.txt). Linux only (reads /proc).
+set -euo pipefail
+
+BINARY=$(realpath "$1")
+PORT=${2:-18081}
+TARGET=$(dirname "$BINARY")
+LOG="$TARGET/native-smoke.log"
+REPORT="$TARGET/native-smoke-report.txt"
+BASE="http://localhost:$PORT"
+
+"$BINARY" --server.port="$PORT" --spring.jpa.hibernate.ddl-auto=create > "$LOG" 2>&1 &
+PID=$!
+trap 'kill $PID 2>/dev/null || true' EXIT
+
+for _ in $(seq 1 300); do
+    if grep -q "Started SpringProjectApplication" "$LOG"; then
+        break
+    fi
+    if ! kill -0 "$PID" 2>/dev/null; then
+        echo "native binary exited during startup, see $LOG" >&2
+        exit 1
+    fi
+    sleep 0.1
+done
+STARTUP=$(grep -o "Started SpringProjectApplication in [0-9.]* seconds" "$LOG" | awk '{print $4}')
+RSS_STARTED=$(awk '/VmRSS/ {print $2}' "/proc/$PID/status")
+
+fail() {
+    echo "FAIL: $1" >&2
+    exit 1
+}
+
+# expect <description> <expected status> <curl args...>
+expect() {
+    local description=$1 expected=$2
+    shift 2
+    local status
+    status=$(curl -s -o "$TARGET/native-smoke-body.html" -w "%{http_code}" "$@")
+    [ "$status" = "$expected" ] || fail "$description: HTTP $status, expected $expected"
+}
+
+# Listing
+expect "home page" 200 "$BASE/"
+expect "product list" 200 "$BASE/products"
+expect "category list" 200 "$BASE/categories"
+
+# Save a category and find its id
+expect "save category" 302 -X POST "$BASE/categories/save" \
+    --data-urlencode "name=Native Smoke" --data-urlencode "description=Created by the native smoke test"
+expect "search categories" 200 "$BASE/categories?search=Native"
+CATEGORY_ID=$(grep -o '/categories/view/[0-9]*' "$TARGET/native-smoke-body.html" | head -1 | grep -o '[0-9]*$')
+[ -n "$CATEGORY_ID" ] || fail "saved category not listed"
+
+# Save a product in it
+expect "save product" 302 -X POST "$BASE/products/save" \
+    --data-urlencode "code=NATIVE-001" --data-urlencode "name=Native Runner" \
+    --data-urlencode "price=49.90" --data-urlencode "category.id=$CATEGORY_ID"
+
+# Search and category listing
+expect "search products" 200 "$BASE/products?search=NATIVE"
+grep -q "NATIVE-001" "$TARGET/native-smoke-body.html" || fail "saved product not found by search"
+expect "price filter" 200 "$BASE/products?minPrice=40&maxPrice=50"
+grep -q "NATIVE-001" "$TARGET/native-smoke-body.html" || fail "saved product not found by price filter"
+expect "category products" 200 "$BASE/products/category/$CATEGORY_ID"
+grep -q "Native Runner" "$TARGET/native-smoke-body.html" || fail "saved product not listed in its category"
+
+RSS_EXERCISED=$(awk '/VmRSS/ {print $2}' "/proc/$PID/status")
+
+{
+    echo "Native smoke test passed $(date -u +%Y-%m-%dT%H:%M:%SZ)"
+    echo "startup       ${STARTUP} s"
+    echo "RSS started   ${RSS_STARTED} kB"
+    echo "RSS exercised ${RSS_EXERCISED} kB"
+} | tee "$REPORT"
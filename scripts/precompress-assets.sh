@@ -0,0 +1,24 @@
+#!/usr/bin/env bash
+#
+# Write gzip and brotli variants next to every CSS and JS file so the resource
+# chain can serve them precompressed (style.css -> style.css.gz, style.css.br).
+# Brotli is skipped when the brotli CLI is not installed.
+#
+# Usage: scripts/precompress-assets.sh <static-dir>
+# Run by the "assets" Maven profile (mvn -Passets package).
+set -euo pipefail
+
+DIR=${1:?usage: precompress-assets.sh <static-dir>}
+HAVE_BROTLI=$(command -v brotli >/dev/null 2>&1 && echo yes || echo no)
+
+find "$DIR" -type f \( -name '*.css' -o -name '*.js' \) | while read -r file; do
+    gzip -9 -n -k -f "$file"
+    if [ "$HAVE_BROTLI" = yes ]; then
+        brotli -q 11 -k -f "$file"
+    fi
+    echo "$(basename "$file"): $(wc -c < "$file") bytes, gzip $(wc -c < "$file.gz")$( [ "$HAVE_BROTLI" = yes ] && echo ", brotli $(wc -c < "$file.br")")"
+done
+
+if [ "$HAVE_BROTLI" = no ]; then
+    echo "brotli not found, only gzip variants written"
+fi
@@ -0,0 +1,87 @@
+package com.shoe.config;
+
+import com.shoe.datasource.ReplicaHealthChecker;
+import com.shoe.datasource.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read/write splitting: {@code @Transactional(readOnly = true)} work runs on a
+ * read replica, writes and non-transactional access on the primary
+ * ({@code spring.datasource.*}). Replicas are listed in
+ * {@code datasource.replicas.urls}; see {@link ReplicaHealthChecker} for the
+ * lag check that takes stale replicas out of rotation.
+ */
+@Configuration
+@ConditionalOnExpression("${datasource.replicas.enabled:false} and !${datasource.shards.enabled:false}")
+public class DataSourceRoutingConfig {
+
+    @Value("${datasource.replicas.urls}")
+    private List<String> replicaUrls;
+
+    @Value("${datasource.replicas.username:${spring.datasource.username:}}")
+    private String replicaUsername;
+
+    @Value("${datasource.replicas.password:${spring.datasource.password:}}")
+    private String replicaPassword;
+
+    @Value("${datasource.replicas.pool-size:10}")
+    private int replicaPoolSize;
+
+    @Value("${datasource.replicas.max-lag-ms:2000}")
+    private long maxLagMs;
+
+    @Value("${datasource.replicas.lag-check:heartbeat}")
+    private String lagCheck;
+
+    private HikariDataSource primary;
+
+    private final Map<String, DataSource> replicas = new LinkedHashMap<>();
+
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(DataSourceProperties properties) {
+        primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        primary.setPoolName("primary");
+
+        for (int i = 0; i < replicaUrls.size(); i++) {
+            HikariDataSource replica = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .driverClassName(properties.determineDriverClassName())
+                    .url(replicaUrls.get(i).trim())
+                    .username(replicaUsername)
+                    .password(replicaPassword)
+                    .build();
+            replica.setPoolName("replica-" + i);
+            replica.setMaximumPoolSize(replicaPoolSize);
+            replica.setReadOnly(true);
+            // a replica that is down must not block startup; the health check keeps it out of rotation
+            replica.setInitializationFailTimeout(-1);
+            replicas.put(replica.getPoolName(), replica);
+        }
+        return new ReplicaRoutingDataSource(primary, replicas);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+
+    @Bean
+    public ReplicaHealthChecker replicaHealthChecker(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new ReplicaHealthChecker(replicaRoutingDataSource, primary, replicas, maxLagMs,
+                !"none".equalsIgnoreCase(lagCheck));
+    }
+}
@@ -0,0 +1,57 @@
+package com.shoe.config;
+
+import com.shoe.entity.Category;
+import com.shoe.entity.ChangeLog;
+import com.shoe.entity.OutboxEvent;
+import com.shoe.entity.Product;
+import com.shoe.event.ChangeEvent;
+import com.shoe.repository.CategoryDetail;
+import com.shoe.repository.ProductDetail;
+import com.shoe.repository.ProductRow;
+import com.shoe.service.ProductFacets;
+import com.shoe.service.RecentItems;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.data.domain.PageImpl;
+
+/**
+ * Reflection and resource hints for the GraalVM native image.
+ *
+ * Spring AOT already covers the JPA entities and the Spring Data repositories,
+ * including their {@code @Query} methods. What it cannot see are the classes
+ * Thymeleaf reads through SpEL at render time, the types Jackson serializes
+ * in the JSON endpoints, and the template and static resources themselves.
+ */
+@Configuration
+@ImportRuntimeHints(NativeHintsConfig.CatalogRuntimeHints.class)
+public class NativeHintsConfig {
+
+    static class CatalogRuntimeHints implements RuntimeHintsRegistrar {
+
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            // Model objects rendered by the templates (SpEL property access)
+            for (Class<?> type : new Class<?>[] {
+                    Product.class, Category.class, CategoryDetail.class, ProductDetail.class, ProductRow.class, ProductFacets.class,
+                    ProductFacets.CategoryFacet.class, ProductFacets.PriceFacet.class,
+                    RecentItems.RecentCategory.class, RecentItems.RecentProduct.class}) {
+                hints.reflection().registerType(type,
+                        MemberCategory.INVOKE_PUBLIC_METHODS, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+            }
+
+            // Types serialized by the JSON endpoints
+            BindingReflectionHintsRegistrar bindings = new BindingReflectionHintsRegistrar();
+            bindings.registerReflectionHints(hints.reflection(),
+                    ChangeLog.class, OutboxEvent.class, ChangeEvent.class, PageImpl.class);
+
+            // Templates and static assets
+            hints.resources().registerPattern("templates/*.html");
+            hints.resources().registerPattern("templates/*/*.html");
+            hints.resources().registerPattern("static/*/*");
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.shoe.config;
+
+import com.shoe.datasource.ProductShards;
+import com.shoe.datasource.ShardRouter;
+import com.shoe.datasource.ShardRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Product sharding by category. Shard 0 is {@code spring.datasource.*} and
+ * keeps every other table; {@code datasource.shards.urls} adds shards 1..n.
+ * Cannot be combined with read replicas.
+ */
+@Configuration
+@ConditionalOnProperty(name = "datasource.shards.enabled", havingValue = "true")
+public class ShardingConfig {
+
+    @Value("${datasource.shards.urls}")
+    private List<String> shardUrls;
+
+    @Value("${datasource.shards.username:${spring.datasource.username:}}")
+    private String shardUsername;
+
+    @Value("${datasource.shards.password:${spring.datasource.password:}}")
+    private String shardPassword;
+
+    @Value("${datasource.shards.category-map:}")
+    private String categoryMap;
+
+    @Value("${datasource.shards.initialize-schema:true}")
+    private boolean initializeSchema;
+
+    @Value("${datasource.shards.query-threads:8}")
+    private int queryThreads;
+
+    @Value("${datasource.shards.query-timeout-ms:5000}")
+    private long queryTimeoutMs;
+
+    private final List<DataSource> shards = new ArrayList<>();
+
+    @Bean
+    public ShardRoutingDataSource shardRoutingDataSource(DataSourceProperties properties) {
+        HikariDataSource main = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        main.setPoolName("shard-0");
+        shards.add(main);
+
+        for (String url : shardUrls) {
+            HikariDataSource shard = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .driverClassName(properties.determineDriverClassName())
+                    .url(url.trim())
+                    .username(shardUsername)
+                    .password(shardPassword)
+                    .build();
+            shard.setPoolName("shard-" + shards.size());
+            shards.add(shard);
+        }
+        return new ShardRoutingDataSource(shards);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ShardRoutingDataSource shardRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(shardRoutingDataSource);
+    }
+
+    @Bean
+    public ProductShards productShards(ShardRoutingDataSource shardRoutingDataSource,
+                                       @Lazy PlatformTransactionManager transactionManager) {
+        ShardRouter router = new ShardRouter(shards.size(), ShardRouter.parsePinned(categoryMap));
+        ProductShards productShards = new ProductShards(router, shards, transactionManager, queryThreads, queryTimeoutMs);
+        if (initializeSchema) {
+            productShards.createSchema();
+        }
+        return productShards;
+    }
+
+    /**
+     * Copy categories to the shards and rebuild the code directory once the schema is in place
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void synchronizeShards(ApplicationReadyEvent event) {
+        event.getApplicationContext().getBean(ProductShards.class).synchronize();
+    }
+}
@@ -0,0 +1,27 @@
+package com.shoe.config;
+
+import com.shoe.datasource.ReplicaHealthChecker;
+import com.shoe.event.SseChangeEventSink;
+import com.shoe.idempotency.IdempotencyStore;
+import com.shoe.ratelimit.RateLimitInterceptor;
+import com.shoe.service.DashboardCountersPublisher;
+import com.shoe.service.OutboxRelay;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class StartupConfig {
+
+    /**
+     * Beans that must start with the context even when lazy initialization is
+     * enabled: their {@code @Scheduled} methods are only registered once the
+     * bean exists, so a lazy instance would never run.
+     */
+    @Bean
+    static LazyInitializationExcludeFilter scheduledBeansExcludeFilter() {
+        return LazyInitializationExcludeFilter.forBeanTypes(OutboxRelay.class, SseChangeEventSink.class,
+                ReplicaHealthChecker.class, RateLimitInterceptor.class, IdempotencyStore.class,
+                DashboardCountersPublisher.class);
+    }
+}
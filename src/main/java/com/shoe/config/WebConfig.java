@@ -0,0 +1,58 @@
+package com.shoe.config;
+
+import com.shoe.ratelimit.RateLimitInterceptor;
+import com.shoe.service.CategorySortKey;
+import com.shoe.service.ProductSortKey;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.format.FormatterRegistry;
+import org.springframework.http.CacheControl;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.resource.EncodedResourceResolver;
+import org.springframework.web.servlet.resource.VersionResourceResolver;
+
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    @Autowired
+    private RateLimitInterceptor rateLimitInterceptor;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(rateLimitInterceptor)
+                .addPathPatterns("/products/**", "/categories/**")
+                .excludePathPatterns("/categories/api/all");
+    }
+
+    /**
+     * CSS and JS are served under content-hashed URLs (style-&lt;md5&gt;.css), which
+     * templates get automatically through {@code @{...}} links, so they can be
+     * cached for a year and never revalidated. Precompressed .br/.gz variants
+     * written by the build are preferred when the client accepts them.
+     */
+    @Override
+    public void addResourceHandlers(ResourceHandlerRegistry registry) {
+        CacheControl immutable = CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable();
+        for (String folder : new String[] {"css", "js"}) {
+            registry.addResourceHandler("/" + folder + "/**")
+                    .addResourceLocations("classpath:/static/" + folder + "/")
+                    .setCacheControl(immutable)
+                    .resourceChain(true)
+                    .addResolver(new EncodedResourceResolver())
+                    .addResolver(new VersionResourceResolver().addContentVersionStrategy("/**"));
+        }
+    }
+
+    /**
+     * Bind sortBy parameters to the allow-listed keys; unknown values are rejected with 400 before any query runs
+     */
+    @Override
+    public void addFormatters(FormatterRegistry registry) {
+        registry.addConverter(String.class, ProductSortKey.class, ProductSortKey::fromProperty);
+        registry.addConverter(String.class, CategorySortKey.class, CategorySortKey::fromProperty);
+    }
+}
@@ -1,14 +1,23 @@
 package com.shoe.controller;
 
 import com.shoe.entity.Category;
+import com.shoe.idempotency.IdempotencyConflictException;
+import com.shoe.idempotency.IdempotencyStore;
+import com.shoe.repository.CategoryDetail;
+import com.shoe.repository.ProductRow;
 import com.shoe.service.CategoryService;
+import com.shoe.service.CategorySortKey;
+import com.shoe.service.ParallelReads;
+import com.shoe.service.ProductCounts;
 import com.shoe.service.ProductService;
+import com.shoe.service.ProductSortKey;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
@@ -16,6 +25,8 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 @Controller
 @RequestMapping("/categories")
@@ -27,6 +38,15 @@ public class CategoryController {
     @Autowired
     private ProductService productService;
     
+    @Autowired
+    private ProductCounts productCounts;
+    
+    @Autowired
+    private ParallelReads parallelReads;
+    
+    @Autowired
+    private IdempotencyStore idempotencyStore;
+    
     /**
      * Display all categories with pagination and search
      */
@@ -34,13 +54,12 @@ public class CategoryController {
     public String listCategories(
             @RequestParam(value = "page", defaultValue = "0") int page,
             @RequestParam(value = "size", defaultValue = "10") int size,
-            @RequestParam(value = "sortBy", defaultValue = "name") String sortBy,
+            @RequestParam(value = "sortBy", defaultValue = "name") CategorySortKey sortBy,
             @RequestParam(value = "sortDir", defaultValue = "asc") String sortDir,
             @RequestParam(value = "search", required = false) String search,
             Model model) {
         
-        Pageable pageable = PageRequest.of(page, size, 
-            sortDir.equalsIgnoreCase("desc") ? Sort.by(sortBy).descending() : Sort.by(sortBy).ascending());
+        Pageable pageable = PageRequest.of(page, size, sortBy.sort(sortDir));
         
         Page<Category> categories;
         if (search != null && !search.trim().isEmpty()) {
@@ -54,7 +73,7 @@ public class CategoryController {
         model.addAttribute("currentPage", page);
         model.addAttribute("totalPages", categories.getTotalPages());
         model.addAttribute("totalItems", categories.getTotalElements());
-        model.addAttribute("sortBy", sortBy);
+        model.addAttribute("sortBy", sortBy.getProperty());
         model.addAttribute("sortDir", sortDir);
         model.addAttribute("reverseSortDir", sortDir.equals("asc") ? "desc" : "asc");
 //         return "category/list";
@@ -91,6 +110,7 @@ public class CategoryController {
     @PostMapping("/save")
     public String saveCategory(@Valid @ModelAttribute("category") Category category,
                               BindingResult result,
+                              @RequestParam(value = "idempotencyKey", required = false) String idempotencyKey,
                               RedirectAttributes redirectAttributes) {
         
         if (result.hasErrors()) {
@@ -99,10 +119,15 @@ public class CategoryController {
         }
         
         try {
-            categoryService.saveCategory(category);
+            // a resubmitted form (same key) gets the first submit's outcome without saving again
+            boolean created = idempotencyStore.execute("category-form", idempotencyKey, fingerprintOf(category), () -> {
+                boolean isNew = category.getId() == null;
+                categoryService.saveCategory(category);
+                return isNew;
+            });
             redirectAttributes.addFlashAttribute("successMessage", 
-                category.getId() == null ? "Category created successfully!" : "Category updated successfully!");
-        } catch (IllegalArgumentException e) {
+                created ? "Category created successfully!" : "Category updated successfully!");
+        } catch (IllegalArgumentException | IdempotencyConflictException e) {
             redirectAttributes.addFlashAttribute("errorMessage", e.getMessage());
             return "redirect:/categories/new";
         }
@@ -110,6 +135,26 @@ public class CategoryController {
         return "redirect:/categories";
     }
     
+    /**
+     * Save category from JSON (create or update); an Idempotency-Key header makes retries safe
+     */
+    @PostMapping("/api/save")
+    @ResponseBody
+    public ResponseEntity<?> saveCategoryApi(@Valid @RequestBody Category category,
+                                             @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        try {
+            return idempotencyStore.execute("category-api", idempotencyKey, fingerprintOf(category), () -> {
+                boolean isNew = category.getId() == null;
+                CategoryDetail saved = CategoryDetail.of(categoryService.saveCategory(category));
+                return ResponseEntity.status(isNew ? HttpStatus.CREATED : HttpStatus.OK).body(saved);
+            });
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IdempotencyConflictException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        }
+    }
+    
     /**
      * Delete category
      */
@@ -132,24 +177,24 @@ public class CategoryController {
     public String viewCategory(@PathVariable Long id, 
                               @RequestParam(value = "page", defaultValue = "0") int page,
                               @RequestParam(value = "size", defaultValue = "10") int size,
-                              @RequestParam(value = "sortBy", defaultValue = "name") String sortBy,
+                              @RequestParam(value = "sortBy", defaultValue = "name") ProductSortKey sortBy,
                               @RequestParam(value = "sortDir", defaultValue = "asc") String sortDir,
                               @RequestParam(value = "search", required = false) String search,
                               Model model) {
         
-        Category category = categoryService.getCategoryById(id)
-            .orElseThrow(() -> new IllegalArgumentException("Invalid category ID: " + id));
+        Pageable pageable = PageRequest.of(page, size, sortBy.sort(sortDir));
         
-        Pageable pageable = PageRequest.of(page, size, 
-            sortDir.equalsIgnoreCase("desc") ? Sort.by(sortBy).descending() : Sort.by(sortBy).ascending());
+        // Look up the category and its product rows in parallel
+        ParallelReads.Batch reads = parallelReads.batch();
+        ParallelReads.Part<Optional<Category>> categoryRead = reads.submit("category", () -> categoryService.getCategoryById(id));
+        ParallelReads.Part<Page<ProductRow>> productsRead = reads.submit("products",
+                () -> productService.getProductRowsByCategory(id, search, pageable));
         
-        // Get products for this category
-        Page<com.shoe.entity.Product> products;
+        Category category = categoryRead.get()
+            .orElseThrow(() -> new IllegalArgumentException("Invalid category ID: " + id));
+        Page<ProductRow> products = productsRead.get();
         if (search != null && !search.trim().isEmpty()) {
-            products = productService.getProductsByCategory(id, search, pageable);
             model.addAttribute("search", search);
-        } else {
-            products = productService.getProductsByCategory(id, pageable);
         }
         
         model.addAttribute("category", category);
@@ -157,7 +202,9 @@ public class CategoryController {
         model.addAttribute("currentPage", page);
         model.addAttribute("totalPages", products.getTotalPages());
         model.addAttribute("totalItems", products.getTotalElements());
-        model.addAttribute("sortBy", sortBy);
+        model.addAttribute("totalLabel", productCounts.label(products.getTotalElements()));
+        model.addAttribute("totalCapped", productCounts.isCapped(products.getTotalElements()));
+        model.addAttribute("sortBy", sortBy.getProperty());
         model.addAttribute("sortDir", sortDir);
         model.addAttribute("reverseSortDir", sortDir.equals("asc") ? "desc" : "asc");
         
@@ -169,7 +216,11 @@ public class CategoryController {
      */
     @GetMapping("/api/all")
     @ResponseBody
-    public List<Category> getAllCategories() {
-        return categoryService.getAllCategories();
+    public List<CategoryDetail> getAllCategories() {
+        return categoryService.getAllCategories().stream().map(CategoryDetail::of).toList();
+    }
+    
+    private static String fingerprintOf(Category category) {
+        return IdempotencyStore.fingerprint(category.getId(), category.getName(), category.getDescription());
     }
 }
@@ -0,0 +1,43 @@
+package com.shoe.controller;
+
+import com.shoe.entity.ChangeLog;
+import com.shoe.service.ChangeLogService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@RestController
+@RequestMapping("/changes/api")
+public class ChangeLogController {
+    
+    @Autowired
+    private ChangeLogService changeLogService;
+    
+    /**
+     * Get changes by entity type and time range
+     */
+    @GetMapping
+    public Page<ChangeLog> getChanges(
+            @RequestParam(value = "entity", required = false) String entity,
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(value = "page", defaultValue = "0") int page,
+            @RequestParam(value = "size", defaultValue = "50") int size) {
+        return changeLogService.getChanges(entity, from, to, PageRequest.of(page, Math.min(size, 500)));
+    }
+    
+    /**
+     * Get changes published after the given publish sequence (change feed)
+     */
+    @GetMapping("/feed")
+    public List<ChangeLog> getFeed(
+            @RequestParam(value = "after", defaultValue = "0") Long after,
+            @RequestParam(value = "limit", defaultValue = "100") int limit) {
+        return changeLogService.getChangesAfter(after, Math.min(limit, 1000));
+    }
+}
@@ -0,0 +1,71 @@
+package com.shoe.controller;
+
+import com.shoe.event.ChangeEvent;
+import com.shoe.event.SseChangeEventSink;
+import com.shoe.service.OutboxService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+
+@RestController
+@RequestMapping("/events")
+public class EventStreamController {
+    
+    private static final long STREAM_TIMEOUT_MS = 30 * 60 * 1000L;
+    
+    private static final int REPLAY_LIMIT = 1000;
+    
+    @Autowired
+    private SseChangeEventSink sseChangeEventSink;
+    
+    @Autowired
+    private OutboxService outboxService;
+    
+    /**
+     * Stream product and category change events; a reconnecting client sends
+     * Last-Event-ID and first receives the events it missed, then live ones.
+     * A client that missed more than can be replayed gets a "reset" event.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) throws IOException {
+        SseEmitter emitter = new SseEmitter(STREAM_TIMEOUT_MS);
+        if (lastEventId == null) {
+            return sseChangeEventSink.subscribe(emitter);
+        }
+        
+        // subscribe paused before reading the replay so nothing published in between
+        // is lost; live delivery starts after the replay and skips what it covered
+        SseChangeEventSink.Subscription subscription = sseChangeEventSink.subscribePaused(emitter);
+        try {
+            List<ChangeEvent> missed = outboxService.getPublishedAfter(lastEventId, REPLAY_LIMIT + 1);
+            if (missed.size() > REPLAY_LIMIT) {
+                subscription.reset();
+                return emitter;
+            }
+            long replayedThrough = lastEventId;
+            for (ChangeEvent event : missed) {
+                SseChangeEventSink.send(emitter, event);
+                replayedThrough = event.getId();
+            }
+            subscription.resume(replayedThrough);
+        } catch (IOException | RuntimeException e) {
+            subscription.cancel();
+            throw e;
+        }
+        return emitter;
+    }
+    
+    /**
+     * Published change events after the given event ID, for polling consumers
+     */
+    @GetMapping("/api")
+    public List<ChangeEvent> getEvents(
+            @RequestParam(value = "after", defaultValue = "0") Long after,
+            @RequestParam(value = "limit", defaultValue = "100") int limit) {
+        return outboxService.getPublishedAfter(after, Math.min(limit, REPLAY_LIMIT));
+    }
+}
@@ -1,18 +1,14 @@
 package com.shoe.controller;
 
-import com.shoe.entity.Category;
-import com.shoe.entity.Product;
 import com.shoe.service.CategoryService;
+import com.shoe.service.ParallelReads;
 import com.shoe.service.ProductService;
+import com.shoe.service.RecentItems;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 
-import java.util.List;
-
 @Controller
 public class HomeController {
     
@@ -22,46 +18,42 @@ public class HomeController {
     @Autowired
     private ProductService productService;
     
+    @Autowired
+    private ParallelReads parallelReads;
+    
+    @Autowired
+    private RecentItems recentItems;
+    
     /**
-     * Display home page with recent categories and products
+     * Display home page with recent categories and products (from memory)
      */
     @GetMapping("/")
     public String home(Model model) {
-        // Get recent categories (limit to 5)
-        Pageable categoryPageable = PageRequest.of(0, 5);
-        List<Category> recentCategories = categoryService.getAllCategories(categoryPageable).getContent();
-        
-        // Get recent products (limit to 10)
-        Pageable productPageable = PageRequest.of(0, 10);
-        List<Product> recentProducts = productService.getAllProducts(productPageable).getContent();
-        
-        model.addAttribute("recentCategories", recentCategories);
-        model.addAttribute("recentProducts", recentProducts);
+        model.addAttribute("recentCategories", recentItems.getCategories(5));
+        model.addAttribute("recentProducts", recentItems.getProducts(10));
         // return "index";
         return "index";
         // return "index-test";
     }
     
     /**
-     * Display dashboard with statistics
+     * Display dashboard with statistics (counts read in parallel, recent items from memory)
      */
     @GetMapping("/dashboard")
     public String dashboard(Model model) {
+        ParallelReads.Batch reads = parallelReads.batch();
+        
         // Get total counts
-        long totalCategories = categoryService.getAllCategories().size();
-        long totalProducts = productService.getAllProducts().size();
+        ParallelReads.Part<Long> totalCategories = reads.submit("totalCategories", categoryService::countCategories);
+        ParallelReads.Part<Long> totalProducts = reads.submit("totalProducts", productService::countProducts);
         
         // Get recent categories and products
-        Pageable categoryPageable = PageRequest.of(0, 5);
-        List<Category> recentCategories = categoryService.getAllCategories(categoryPageable).getContent();
-        
-        Pageable productPageable = PageRequest.of(0, 10);
-        List<Product> recentProducts = productService.getAllProducts(productPageable).getContent();
+        model.addAttribute("recentCategories", recentItems.getCategories(5));
+        model.addAttribute("recentProducts", recentItems.getProducts(10));
         
-        model.addAttribute("totalCategories", totalCategories);
-        model.addAttribute("totalProducts", totalProducts);
-        model.addAttribute("recentCategories", recentCategories);
-        model.addAttribute("recentProducts", recentProducts);
+        model.addAttribute("totalCategories", totalCategories.orElse(null));
+        model.addAttribute("totalProducts", totalProducts.orElse(null));
+        model.addAttribute("unavailable", reads.getUnavailable());
         
         return "dashboard";
     }
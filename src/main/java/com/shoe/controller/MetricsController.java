@@ -0,0 +1,48 @@
+package com.shoe.controller;
+
+import com.shoe.idempotency.IdempotencyStore;
+import com.shoe.ratelimit.RateLimitInterceptor;
+import com.shoe.service.ParallelReads;
+import com.shoe.service.ProductCounts;
+import com.shoe.service.ReadCoalescer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/metrics/api")
+public class MetricsController {
+    
+    @Autowired
+    private ReadCoalescer readCoalescer;
+    
+    @Autowired
+    private RateLimitInterceptor rateLimitInterceptor;
+    
+    @Autowired
+    private ProductCounts productCounts;
+    
+    @Autowired
+    private ParallelReads parallelReads;
+
+    @Autowired
+    private IdempotencyStore idempotencyStore;
+    
+    /**
+     * Get runtime counters of the read path and the request limiters
+     */
+    @GetMapping
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("coalescing", readCoalescer.getStats());
+        metrics.put("rateLimiting", rateLimitInterceptor.getStats());
+        metrics.put("counts", productCounts.getStats());
+        metrics.put("pageReads", parallelReads.getStats());
+        metrics.put("idempotency", idempotencyStore.getStats());
+        return metrics;
+    }
+}
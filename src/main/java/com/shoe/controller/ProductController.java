@@ -2,21 +2,29 @@ package com.shoe.controller;
 
 import com.shoe.entity.Product;
 import com.shoe.entity.Category;
+import com.shoe.idempotency.IdempotencyConflictException;
+import com.shoe.idempotency.IdempotencyStore;
+import com.shoe.repository.ProductDetail;
+import com.shoe.service.ProductCounts;
 import com.shoe.service.ProductService;
+import com.shoe.service.ProductSortKey;
 import com.shoe.service.CategoryService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
 
 @Controller
 @RequestMapping("/products")
@@ -25,6 +33,12 @@ public class ProductController {
     @Autowired
     private ProductService productService;
     
+    @Autowired
+    private ProductCounts productCounts;
+    
+    @Autowired
+    private IdempotencyStore idempotencyStore;
+    
     @Autowired
     private CategoryService categoryService;
     
@@ -35,27 +49,44 @@ public class ProductController {
     public String listProducts(
             @RequestParam(value = "page", defaultValue = "0") int page,
             @RequestParam(value = "size", defaultValue = "10") int size,
-            @RequestParam(value = "sortBy", defaultValue = "name") String sortBy,
+            @RequestParam(value = "sortBy", defaultValue = "name") ProductSortKey sortBy,
             @RequestParam(value = "sortDir", defaultValue = "asc") String sortDir,
             @RequestParam(value = "search", required = false) String search,
+            @RequestParam(value = "minPrice", required = false) BigDecimal minPrice,
+            @RequestParam(value = "maxPrice", required = false) BigDecimal maxPrice,
+            @RequestParam(value = "categoryId", required = false) Long categoryId,
             Model model) {
         
-        Pageable pageable = PageRequest.of(page, size, 
-            sortDir.equalsIgnoreCase("desc") ? Sort.by(sortBy).descending() : Sort.by(sortBy).ascending());
+        Pageable pageable = PageRequest.of(page, size, sortBy.sort(sortDir));
+        
+        if (minPrice != null && maxPrice != null && minPrice.compareTo(maxPrice) > 0) {
+            BigDecimal swap = minPrice;
+            minPrice = maxPrice;
+            maxPrice = swap;
+        }
         
         Page<Product> products;
-        if (search != null && !search.trim().isEmpty()) {
+        if (categoryId != null || minPrice != null || maxPrice != null) {
+            products = productService.filterProducts(categoryId, search, minPrice, maxPrice, pageable);
+            model.addAttribute("search", search);
+        } else if (search != null && !search.trim().isEmpty()) {
             products = productService.searchProductsByNameOrCode(search, pageable);
             model.addAttribute("search", search);
         } else {
             products = productService.getAllProducts(pageable);
         }
         
+        model.addAttribute("facets", productService.getProductFacets(categoryId, search, minPrice, maxPrice));
+        model.addAttribute("categoryId", categoryId);
+        model.addAttribute("minPrice", minPrice);
+        model.addAttribute("maxPrice", maxPrice);
         model.addAttribute("products", products);
         model.addAttribute("currentPage", page);
         model.addAttribute("totalPages", products.getTotalPages());
         model.addAttribute("totalItems", products.getTotalElements());
-        model.addAttribute("sortBy", sortBy);
+        model.addAttribute("totalLabel", productCounts.label(products.getTotalElements()));
+        model.addAttribute("totalCapped", productCounts.isCapped(products.getTotalElements()));
+        model.addAttribute("sortBy", sortBy.getProperty());
         model.addAttribute("sortDir", sortDir);
         model.addAttribute("reverseSortDir", sortDir.equals("asc") ? "desc" : "asc");
         
@@ -97,6 +128,7 @@ public class ProductController {
     @PostMapping("/save")
     public String saveProduct(@Valid @ModelAttribute("product") Product product,
                              BindingResult result,
+                             @RequestParam(value = "idempotencyKey", required = false) String idempotencyKey,
                              RedirectAttributes redirectAttributes,
                              Model model) {
         
@@ -107,10 +139,15 @@ public class ProductController {
         }
         
         try {
-            productService.saveProduct(product);
+            // a resubmitted form (same key) gets the first submit's outcome without saving again
+            boolean created = idempotencyStore.execute("product-form", idempotencyKey, fingerprintOf(product), () -> {
+                boolean isNew = product.getId() == null;
+                productService.saveProduct(product);
+                return isNew;
+            });
             redirectAttributes.addFlashAttribute("successMessage", 
-                product.getId() == null ? "Product created successfully!" : "Product updated successfully!");
-        } catch (IllegalArgumentException e) {
+                created ? "Product created successfully!" : "Product updated successfully!");
+        } catch (IllegalArgumentException | IdempotencyConflictException e) {
             redirectAttributes.addFlashAttribute("errorMessage", e.getMessage());
             List<Category> categories = categoryService.getAllCategories();
             model.addAttribute("categories", categories);
@@ -120,6 +157,26 @@ public class ProductController {
         return "redirect:/products";
     }
     
+    /**
+     * Save product from JSON (create or update); an Idempotency-Key header makes retries safe
+     */
+    @PostMapping("/api/save")
+    @ResponseBody
+    public ResponseEntity<?> saveProductApi(@Valid @RequestBody Product product,
+                                            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        try {
+            return idempotencyStore.execute("product-api", idempotencyKey, fingerprintOf(product), () -> {
+                boolean isNew = product.getId() == null;
+                ProductDetail saved = ProductDetail.of(productService.saveProduct(product));
+                return ResponseEntity.status(isNew ? HttpStatus.CREATED : HttpStatus.OK).body(saved);
+            });
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IdempotencyConflictException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        }
+    }
+    
     /**
      * Delete product
      */
@@ -140,7 +197,7 @@ public class ProductController {
      */
     @GetMapping("/view/{id}")
     public String viewProduct(@PathVariable Long id, Model model) {
-        Product product = productService.getProductById(id)
+        ProductDetail product = productService.getProductDetail(id)
             .orElseThrow(() -> new IllegalArgumentException("Invalid product ID: " + id));
         
         model.addAttribute("product", product);
@@ -154,34 +211,54 @@ public class ProductController {
     public String getProductsByCategory(@PathVariable Long categoryId,
                                       @RequestParam(value = "page", defaultValue = "0") int page,
                                       @RequestParam(value = "size", defaultValue = "10") int size,
-                                      @RequestParam(value = "sortBy", defaultValue = "name") String sortBy,
+                                      @RequestParam(value = "sortBy", defaultValue = "name") ProductSortKey sortBy,
                                       @RequestParam(value = "sortDir", defaultValue = "asc") String sortDir,
                                       @RequestParam(value = "search", required = false) String search,
+                                      @RequestParam(value = "minPrice", required = false) BigDecimal minPrice,
+                                      @RequestParam(value = "maxPrice", required = false) BigDecimal maxPrice,
                                       Model model) {
         
         Category category = categoryService.getCategoryById(categoryId)
             .orElseThrow(() -> new IllegalArgumentException("Invalid category ID: " + categoryId));
         
-        Pageable pageable = PageRequest.of(page, size, 
-            sortDir.equalsIgnoreCase("desc") ? Sort.by(sortBy).descending() : Sort.by(sortBy).ascending());
+        Pageable pageable = PageRequest.of(page, size, sortBy.sort(sortDir));
+        
+        if (minPrice != null && maxPrice != null && minPrice.compareTo(maxPrice) > 0) {
+            BigDecimal swap = minPrice;
+            minPrice = maxPrice;
+            maxPrice = swap;
+        }
         
         Page<Product> products;
-        if (search != null && !search.trim().isEmpty()) {
+        if (minPrice != null || maxPrice != null) {
+            products = productService.getProductsByCategoryInPriceRange(categoryId, search, minPrice, maxPrice, pageable);
+            model.addAttribute("search", search);
+        } else if (search != null && !search.trim().isEmpty()) {
             products = productService.getProductsByCategory(categoryId, search, pageable);
             model.addAttribute("search", search);
         } else {
             products = productService.getProductsByCategory(categoryId, pageable);
         }
         
+        model.addAttribute("minPrice", minPrice);
+        model.addAttribute("maxPrice", maxPrice);
         model.addAttribute("category", category);
         model.addAttribute("products", products);
         model.addAttribute("currentPage", page);
         model.addAttribute("totalPages", products.getTotalPages());
         model.addAttribute("totalItems", products.getTotalElements());
-        model.addAttribute("sortBy", sortBy);
+        model.addAttribute("totalLabel", productCounts.label(products.getTotalElements()));
+        model.addAttribute("totalCapped", productCounts.isCapped(products.getTotalElements()));
+        model.addAttribute("sortBy", sortBy.getProperty());
         model.addAttribute("sortDir", sortDir);
         model.addAttribute("reverseSortDir", sortDir.equals("asc") ? "desc" : "asc");
         
         return "product/category-products";
     }
+    
+    private static String fingerprintOf(Product product) {
+        return IdempotencyStore.fingerprint(product.getId(), product.getCode(), product.getName(),
+                product.getPrice() != null ? product.getPrice().stripTrailingZeros().toPlainString() : null,
+                product.getCategory() != null ? product.getCategory().getId() : null);
+    }
 }
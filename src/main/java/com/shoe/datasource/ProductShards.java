@@ -0,0 +1,513 @@
+package com.shoe.datasource;
+
+import com.shoe.entity.Category;
+import com.shoe.entity.Product;
+import com.shoe.service.AfterCommit;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Products partitioned by category across several databases.
+ *
+ * Every query runs in its own transaction pinned to one shard. Category-scoped
+ * queries go to the category's shard; global ones run on all shards in
+ * parallel and the sorted partial results are merged (k-way) in the requested order. Each
+ * shard keeps a copy of the categories table for joins and an outbox written
+ * with its products, which OutboxRelay forwards to shard 0. Shard 0 keeps a
+ * directory of product codes that enforces code uniqueness across shards and
+ * records which shard holds each product.
+ */
+public class ProductShards {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductShards.class);
+
+    private final ShardRouter router;
+
+    private final List<JdbcTemplate> shards = new ArrayList<>();
+
+    private final TransactionTemplate readTemplate;
+
+    private final TransactionTemplate writeTemplate;
+
+    private final ExecutorService executor;
+
+    private final long queryTimeoutMs;
+
+    public ProductShards(ShardRouter router, List<DataSource> shardDataSources, PlatformTransactionManager transactionManager,
+                         int queryThreads, long queryTimeoutMs) {
+        this.router = router;
+        for (DataSource dataSource : shardDataSources) {
+            shards.add(new JdbcTemplate(dataSource));
+        }
+        this.readTemplate = new TransactionTemplate(transactionManager);
+        readTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        readTemplate.setReadOnly(true);
+        // becomes a statement timeout on the shard, so an abandoned query frees its connection
+        readTemplate.setTimeout((int) Math.max(1, TimeUnit.MILLISECONDS.toSeconds(queryTimeoutMs + 999)));
+        this.writeTemplate = new TransactionTemplate(transactionManager);
+        writeTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.queryTimeoutMs = queryTimeoutMs;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(queryThreads, runnable -> {
+            Thread thread = new Thread(runnable, "shard-query-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public int getShardCount() {
+        return router.getShardCount();
+    }
+
+    public int shardForCategory(Long categoryId) {
+        return router.shardForCategory(categoryId);
+    }
+
+    /**
+     * Shard holding a product according to the code directory; empty for an unknown product
+     */
+    public Optional<Integer> shardOfProduct(Long productId) {
+        List<Integer> shard = directory().queryForList(
+                "SELECT shard_index FROM product_codes WHERE product_id = ?", Integer.class, productId);
+        return shard.isEmpty() ? Optional.empty() : Optional.of(shard.get(0));
+    }
+
+    // Queries
+
+    /**
+     * Run a read in its own read-only transaction on one shard
+     */
+    public <T> T read(int shard, Supplier<T> query) {
+        return onShard(shard, () -> readTemplate.execute(status -> query.get()));
+    }
+
+    /**
+     * Run a write in its own transaction on one shard
+     */
+    public <T> T write(int shard, Supplier<T> work) {
+        return onShard(shard, () -> writeTemplate.execute(status -> work.get()));
+    }
+
+    /**
+     * Run a read on every shard in parallel; results are in shard order
+     */
+    public <T> List<T> readAll(Supplier<T> query) {
+        List<Future<T>> futures = new ArrayList<>();
+        for (int shard = 0; shard < getShardCount(); shard++) {
+            int target = shard;
+            futures.add(executor.submit(() -> read(target, query)));
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(queryTimeoutMs);
+        List<T> results = new ArrayList<>(futures.size());
+        try {
+            for (Future<T> future : futures) {
+                results.add(future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+            }
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("Shard query timed out after " + queryTimeoutMs + " ms", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for shards", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            // no-op for finished queries; interrupts the rest when the gather gave up on them
+            futures.forEach(future -> future.cancel(true));
+        }
+        return results;
+    }
+
+    /**
+     * Run a paged query on every shard and merge the results into one page.
+     * Each shard returns its first {@code offset + size} rows, so the cost of a
+     * page grows with its depth.
+     */
+    public Page<Product> gatherPage(Function<Pageable, Page<Product>> query, Pageable pageable) {
+        if (getShardCount() == 1) {
+            return read(0, () -> withCategories(query.apply(pageable)));
+        }
+        List<Page<Product>> pages = readAll(() -> withCategories(query.apply(window(pageable))));
+
+        long total = 0;
+        List<List<Product>> runs = new ArrayList<>();
+        for (Page<Product> page : pages) {
+            total += page.getTotalElements();
+            runs.add(page.getContent());
+        }
+        return new PageImpl<>(pageOf(runs, pageable), pageable, total);
+    }
+
+    /**
+     * Like {@link #gatherPage}, for list queries that do not count
+     */
+    public List<Product> gatherWindow(Function<Pageable, List<Product>> query, Pageable pageable) {
+        if (getShardCount() == 1) {
+            return read(0, () -> withCategories(query.apply(pageable)));
+        }
+        return pageOf(readAll(() -> withCategories(query.apply(window(pageable)))), pageable);
+    }
+
+    /**
+     * First offset + size rows, which every shard must return for the merged page to be right.
+     * Ties are ordered by ID on the shard, as the merge orders them.
+     */
+    private static Pageable window(Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            return pageable;
+        }
+        Sort sort = pageable.getSort().getOrderFor("id") != null ? pageable.getSort() : pageable.getSort().and(Sort.by("id"));
+        return PageRequest.of(0, (int) Math.min(Integer.MAX_VALUE, pageable.getOffset() + pageable.getPageSize()), sort);
+    }
+
+    private static List<Product> pageOf(List<? extends List<Product>> runs, Pageable pageable) {
+        return pageable.isPaged()
+                ? merge(runs, pageable.getSort(), pageable.getOffset(), pageable.getPageSize())
+                : merge(runs, pageable.getSort(), 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Run a list query on every shard and merge the results in the given order
+     */
+    public List<Product> gatherList(Supplier<List<Product>> query, Sort sort) {
+        return merge(readAll(() -> withCategories(query.get())), sort, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Sum a count over all shards
+     */
+    public long sum(Supplier<Long> count) {
+        long total = 0;
+        for (Long value : readAll(count)) {
+            total += value != null ? value : 0;
+        }
+        return total;
+    }
+
+    // Product code directory (shard 0)
+
+    /**
+     * Whether any shard has a product with the code (case-insensitive)
+     */
+    public boolean codeExists(String code) {
+        Integer count = directory().queryForObject(
+                "SELECT COUNT(*) FROM product_codes WHERE code_key = ?", Integer.class, codeKey(code));
+        return count != null && count > 0;
+    }
+
+    /**
+     * Claim a code for a product about to be written to the given shard
+     *
+     * @throws IllegalArgumentException when another product already has the code
+     */
+    public void reserveCode(String code, int shard) {
+        try {
+            directory().update("INSERT INTO product_codes (code_key, product_id, shard_index) VALUES (?, NULL, ?)",
+                    codeKey(code), shard);
+        } catch (DuplicateKeyException e) {
+            throw new IllegalArgumentException("Product with code '" + code + "' already exists");
+        }
+    }
+
+    /**
+     * Record which product holds a code, and on which shard, once it has been written
+     */
+    public void assignCode(String code, Long productId, int shard) {
+        directory().update("UPDATE product_codes SET product_id = ?, shard_index = ? WHERE code_key = ?",
+                productId, shard, codeKey(code));
+    }
+
+    /**
+     * Give a code back, after a failed write or once its product is gone
+     */
+    public void releaseCode(String code) {
+        directory().update("DELETE FROM product_codes WHERE code_key = ?", codeKey(code));
+    }
+
+    // Category copies
+
+    /**
+     * Copy a saved category to the other shards once the transaction commits
+     */
+    public void categorySaved(Category category) {
+        Long id = category.getId();
+        String name = category.getName();
+        String description = category.getDescription();
+        AfterCommit.run(() -> {
+            for (int shard = 1; shard < shards.size(); shard++) {
+                upsertCategory(shards.get(shard), id, name, description);
+            }
+        });
+    }
+
+    /**
+     * Remove a deleted category from the other shards once the transaction commits
+     */
+    public void categoryDeleted(Long id) {
+        AfterCommit.run(() -> {
+            for (int shard = 1; shard < shards.size(); shard++) {
+                shards.get(shard).update("DELETE FROM categories WHERE id = ?", id);
+            }
+        });
+    }
+
+    // Startup
+
+    /**
+     * Create the shard tables (products numbered from the shard's ID range, and their outbox)
+     * and the code directory
+     */
+    public void createSchema() {
+        for (int shard = 1; shard < shards.size(); shard++) {
+            JdbcTemplate template = shards.get(shard);
+            createIfMissing(template, "CREATE TABLE categories (id BIGINT PRIMARY KEY, " +
+                    "name VARCHAR(100) NOT NULL, description VARCHAR(500), created_at TIMESTAMP, updated_at TIMESTAMP)");
+            createIfMissing(template, "CREATE TABLE products (" +
+                    "id BIGINT GENERATED BY DEFAULT AS IDENTITY (START WITH " + ShardRouter.firstId(shard) + ") PRIMARY KEY, " +
+                    "code VARCHAR(50) NOT NULL UNIQUE, name VARCHAR(200) NOT NULL, price NUMERIC(12,2) NOT NULL, " +
+                    "category_id BIGINT NOT NULL REFERENCES categories (id), created_at TIMESTAMP, updated_at TIMESTAMP)");
+            // shards created before the entities had timestamps
+            for (String table : List.of("categories", "products")) {
+                template.execute("ALTER TABLE " + table + " ADD COLUMN IF NOT EXISTS created_at TIMESTAMP");
+                template.execute("ALTER TABLE " + table + " ADD COLUMN IF NOT EXISTS updated_at TIMESTAMP");
+            }
+            createIfMissing(template, "CREATE INDEX idx_categories_name ON categories (name)");
+            createIfMissing(template, "CREATE INDEX idx_products_name ON products (name)");
+            createIfMissing(template, "CREATE INDEX idx_products_price ON products (price)");
+            createIfMissing(template, "CREATE INDEX idx_products_category_name ON products (category_id, name)");
+            createIfMissing(template, "CREATE INDEX idx_products_updated_at ON products (updated_at)");
+            // product events are written with the product; the relay forwards them to shard 0
+            createIfMissing(template, "CREATE SEQUENCE outbox_event_seq START WITH 1 INCREMENT BY 50");
+            createIfMissing(template, "CREATE TABLE outbox_events (id BIGINT PRIMARY KEY, " +
+                    "aggregate_type VARCHAR(50) NOT NULL, aggregate_id BIGINT NOT NULL, event_type VARCHAR(20) NOT NULL, " +
+                    "payload VARCHAR(4000), changed_fields VARCHAR(500), actor VARCHAR(100), " +
+                    "created_at TIMESTAMP NOT NULL, published_at TIMESTAMP, publish_seq BIGINT, " +
+                    "origin_shard INT, origin_id BIGINT)");
+            createIfMissing(template, "CREATE INDEX idx_outbox_published ON outbox_events (published_at, created_at, id)");
+        }
+        createIfMissing(directory(), "CREATE TABLE product_codes (code_key VARCHAR(50) PRIMARY KEY, " +
+                "product_id BIGINT, shard_index INT NOT NULL)");
+        createIfMissing(directory(), "CREATE INDEX idx_product_codes_product ON product_codes (product_id)");
+    }
+
+    /**
+     * Copy all categories to the other shards and rebuild the code directory from the shards.
+     * Also clears reservations left behind by writes that never completed, and finishes moves
+     * interrupted between writing the copy and deleting the original: of two rows with the
+     * same ID the more recently updated one (the copy) is kept.
+     */
+    public void synchronize() {
+        List<Object[]> categories = directory().query("SELECT id, name, description FROM categories",
+                (rs, rowNum) -> new Object[] {rs.getLong(1), rs.getString(2), rs.getString(3)});
+        for (int shard = 1; shard < shards.size(); shard++) {
+            for (Object[] category : categories) {
+                upsertCategory(shards.get(shard), (Long) category[0], (String) category[1], (String) category[2]);
+            }
+        }
+
+        Map<Long, ShardedRow> products = new HashMap<>();
+        for (int shard = 0; shard < shards.size(); shard++) {
+            int index = shard;
+            List<ShardedRow> rows = shards.get(shard).query("SELECT code, id, updated_at FROM products",
+                    (rs, rowNum) -> new ShardedRow(codeKey(rs.getString(1)), rs.getLong(2), index, rs.getTimestamp(3)));
+            for (ShardedRow row : rows) {
+                ShardedRow other = products.get(row.id());
+                if (other == null) {
+                    products.put(row.id(), row);
+                    continue;
+                }
+                ShardedRow stale = other.isNewerThan(row) ? row : other;
+                shards.get(stale.shard()).update("DELETE FROM products WHERE id = ?", stale.id());
+                logger.warn("Removed the stale copy of product {} on shard {} left by an interrupted move", stale.id(), stale.shard());
+                products.put(row.id(), stale == row ? other : row);
+            }
+        }
+
+        List<Object[]> codes = new ArrayList<>(products.size());
+        for (ShardedRow row : products.values()) {
+            codes.add(new Object[] {row.codeKey(), row.id(), row.shard()});
+        }
+        directory().update("DELETE FROM product_codes");
+        directory().batchUpdate("INSERT INTO product_codes (code_key, product_id, shard_index) VALUES (?, ?, ?)", codes);
+        logger.info("Product shards ready: {} shards, {} categories, {} product codes", shards.size(), categories.size(), codes.size());
+    }
+
+    private JdbcTemplate directory() {
+        return shards.get(0);
+    }
+
+    private static String codeKey(String code) {
+        return code.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static void upsertCategory(JdbcTemplate template, Long id, String name, String description) {
+        if (template.update("UPDATE categories SET name = ?, description = ? WHERE id = ?", name, description, id) == 0) {
+            template.update("INSERT INTO categories (id, name, description) VALUES (?, ?, ?)", id, name, description);
+        }
+    }
+
+    /**
+     * A product row found while rebuilding the directory
+     */
+    private record ShardedRow(String codeKey, long id, int shard, Timestamp updatedAt) {
+        boolean isNewerThan(ShardedRow other) {
+            return other.updatedAt == null || (updatedAt != null && updatedAt.after(other.updatedAt));
+        }
+    }
+
+    private static void createIfMissing(JdbcTemplate template, String ddl) {
+        try {
+            template.execute(ddl);
+        } catch (DataAccessException e) {
+            // already exists
+        }
+    }
+
+    private static <T> T onShard(int shard, Supplier<T> work) {
+        Integer previous = ShardContext.current();
+        ShardContext.set(shard);
+        try {
+            return work.get();
+        } finally {
+            ShardContext.set(previous);
+        }
+    }
+
+    /**
+     * Load the categories while the shard's transaction is still open
+     */
+    private static <T extends Iterable<Product>> T withCategories(T products) {
+        for (Product product : products) {
+            if (product.getCategory() != null) {
+                product.getCategory().getName();
+            }
+        }
+        return products;
+    }
+
+    /**
+     * Merge shard results that are each already in {@code sort} order, skipping
+     * {@code offset} rows and keeping at most {@code limit}. Only the head row of
+     * each shard is compared, and sort keys are read once per row reached.
+     */
+    static List<Product> merge(List<? extends List<Product>> runs, Sort sort, long offset, int limit) {
+        List<Sort.Order> orders = sort.toList();
+        Comparator<Object[]> keyOrder = keyOrder(orders);
+        PriorityQueue<Run> heads = new PriorityQueue<>(Math.max(1, runs.size()),
+                (a, b) -> keyOrder.compare(a.keys, b.keys));
+        for (List<Product> products : runs) {
+            Run run = new Run(products.iterator(), orders);
+            if (run.advance()) {
+                heads.add(run);
+            }
+        }
+        List<Product> merged = new ArrayList<>();
+        long skipped = 0;
+        while (!heads.isEmpty() && merged.size() < limit) {
+            Run run = heads.poll();
+            if (skipped < offset) {
+                skipped++;
+            } else {
+                merged.add(run.product);
+            }
+            if (run.advance()) {
+                heads.add(run);
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Order of the extracted keys: the sort's properties, nulls lowest (as H2
+     * sorts them), then the ID as tie-breaker
+     */
+    private static Comparator<Object[]> keyOrder(List<Sort.Order> orders) {
+        Comparator<Object[]> comparator = (a, b) -> 0;
+        for (int i = 0; i < orders.size(); i++) {
+            int index = i;
+            Comparator<Object[]> byKey = Comparator.<Object[], Object>comparing(keys -> keys[index],
+                    Comparator.nullsFirst(ProductShards::compareValues));
+            comparator = comparator.thenComparing(orders.get(i).isAscending() ? byKey : byKey.reversed());
+        }
+        int id = orders.size();
+        return comparator.thenComparing(keys -> (Long) keys[id], Comparator.nullsLast(Comparator.<Long>naturalOrder()));
+    }
+
+    /**
+     * Strings compare by UTF-16 code unit, case-sensitive, like the shards' default H2 collation
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static int compareValues(Object a, Object b) {
+        return ((Comparable) a).compareTo(b);
+    }
+
+    /**
+     * One shard's rows, positioned on its current head
+     */
+    private static final class Run {
+        private final Iterator<Product> rows;
+        private final List<Sort.Order> orders;
+        private Product product;
+        private Object[] keys;
+
+        Run(Iterator<Product> rows, List<Sort.Order> orders) {
+            this.rows = rows;
+            this.orders = orders;
+        }
+
+        boolean advance() {
+            if (!rows.hasNext()) {
+                return false;
+            }
+            product = rows.next();
+            BeanWrapperImpl wrapper = new BeanWrapperImpl(product);
+            keys = new Object[orders.size() + 1];
+            for (int i = 0; i < orders.size(); i++) {
+                keys[i] = wrapper.getPropertyValue(orders.get(i).getProperty());
+            }
+            keys[orders.size()] = product.getId();
+            return true;
+        }
+    }
+}
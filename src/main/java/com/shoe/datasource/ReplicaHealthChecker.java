@@ -0,0 +1,98 @@
+package com.shoe.datasource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decides which replicas may serve reads.
+ *
+ * In {@code heartbeat} mode the primary stamps the current time into
+ * {@code replication_heartbeat} and each replica's copy of that row shows how
+ * far it lags; a replica more than {@code maxLagMs} behind, or unreachable,
+ * is taken out of rotation until it catches up. The table is part of the
+ * schema (db/schema.sql). In {@code none} mode a replica
+ * only has to answer a trivial query (for local setups without replication).
+ */
+public class ReplicaHealthChecker {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaHealthChecker.class);
+
+    private final ReplicaRoutingDataSource routingDataSource;
+
+    private final JdbcTemplate primary;
+
+    private final Map<String, JdbcTemplate> replicas = new LinkedHashMap<>();
+
+    private final long maxLagMs;
+
+    private final boolean heartbeat;
+
+    public ReplicaHealthChecker(ReplicaRoutingDataSource routingDataSource, DataSource primary,
+                                Map<String, DataSource> replicas, long maxLagMs, boolean heartbeat) {
+        this.routingDataSource = routingDataSource;
+        this.primary = new JdbcTemplate(primary);
+        this.maxLagMs = maxLagMs;
+        this.heartbeat = heartbeat;
+        for (Map.Entry<String, DataSource> replica : replicas.entrySet()) {
+            JdbcTemplate template = new JdbcTemplate(replica.getValue());
+            template.setQueryTimeout(2);
+            this.replicas.put(replica.getKey(), template);
+        }
+    }
+
+    /**
+     * Stamp the primary and re-evaluate every replica
+     */
+    @Scheduled(fixedDelayString = "${datasource.replicas.check-interval-ms:1000}")
+    public void check() {
+        long now = System.currentTimeMillis();
+        if (heartbeat) {
+            writeHeartbeat(now);
+        }
+
+        List<String> healthy = new ArrayList<>();
+        for (Map.Entry<String, JdbcTemplate> replica : replicas.entrySet()) {
+            try {
+                if (!heartbeat) {
+                    replica.getValue().queryForObject("SELECT 1", Integer.class);
+                    healthy.add(replica.getKey());
+                    continue;
+                }
+                Long beatAt = replica.getValue().queryForObject(
+                        "SELECT beat_at FROM replication_heartbeat WHERE id = 1", Long.class);
+                long lag = beatAt == null ? Long.MAX_VALUE : now - beatAt;
+                if (lag <= maxLagMs) {
+                    healthy.add(replica.getKey());
+                } else {
+                    logger.debug("Replica {} lags {} ms, reads fall back to other nodes", replica.getKey(), lag);
+                }
+            } catch (DataAccessException e) {
+                logger.debug("Replica {} unavailable: {}", replica.getKey(), e.getMessage());
+            }
+        }
+
+        if (!healthy.equals(routingDataSource.getHealthyReplicas())) {
+            logger.info("Replicas serving reads: {}", healthy);
+        }
+        routingDataSource.setHealthyReplicas(healthy);
+    }
+
+    private void writeHeartbeat(long now) {
+        try {
+            if (primary.update("UPDATE replication_heartbeat SET beat_at = ? WHERE id = 1", now) == 0) {
+                primary.update("INSERT INTO replication_heartbeat (id, beat_at) VALUES (1, ?)", now);
+            }
+        } catch (DataAccessException e) {
+            logger.warn("Cannot write replication heartbeat: {}", e.getMessage());
+        }
+    }
+}
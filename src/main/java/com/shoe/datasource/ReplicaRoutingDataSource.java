@@ -0,0 +1,95 @@
+package com.shoe.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Routes read-only transactions to a healthy read replica (round robin) and
+ * everything else to the primary. When no replica is healthy, reads go to
+ * the primary as well.
+ *
+ * Must be wrapped in a {@code LazyConnectionDataSourceProxy}: the read-only
+ * flag of a transaction is only visible once the transaction has started,
+ * after the transaction manager asked for a connection.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public static final String PRIMARY = "primary";
+
+    private final List<String> replicaKeys;
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    private volatile String[] healthyReplicas;
+
+    private final Map<String, Integer> positions = new HashMap<>();
+
+    private final AtomicLongArray routed;
+
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas) {
+        Map<Object, Object> targets = new LinkedHashMap<>();
+        targets.put(PRIMARY, primary);
+        targets.putAll(replicas);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+
+        this.replicaKeys = List.copyOf(replicas.keySet());
+        this.healthyReplicas = replicaKeys.toArray(new String[0]);
+        positions.put(PRIMARY, 0);
+        for (int i = 0; i < replicaKeys.size(); i++) {
+            positions.put(replicaKeys.get(i), i + 1);
+        }
+        this.routed = new AtomicLongArray(replicaKeys.size() + 1);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String key = PRIMARY;
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            String[] healthy = healthyReplicas;
+            if (healthy.length > 0) {
+                key = healthy[Math.floorMod(next.getAndIncrement(), healthy.length)];
+            }
+        }
+        routed.incrementAndGet(positions.get(key));
+        return key;
+    }
+
+    /**
+     * Replace the set of replicas that may serve reads
+     */
+    public void setHealthyReplicas(List<String> healthy) {
+        List<String> ordered = new ArrayList<>(replicaKeys);
+        ordered.retainAll(healthy);
+        this.healthyReplicas = ordered.toArray(new String[0]);
+    }
+
+    public List<String> getReplicaKeys() {
+        return replicaKeys;
+    }
+
+    public List<String> getHealthyReplicas() {
+        return List.of(healthyReplicas);
+    }
+
+    /**
+     * Connections handed out per target since startup
+     */
+    public Map<String, Long> getRoutedCounts() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        counts.put(PRIMARY, routed.get(0));
+        for (int i = 0; i < replicaKeys.size(); i++) {
+            counts.put(replicaKeys.get(i), routed.get(i + 1));
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,25 @@
+package com.shoe.datasource;
+
+/**
+ * Shard selected for the current thread. Read by {@link ShardRoutingDataSource}
+ * when a transaction asks for its first connection; unset means shard 0.
+ */
+public final class ShardContext {
+
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    public static Integer current() {
+        return CURRENT.get();
+    }
+
+    public static void set(Integer shard) {
+        if (shard == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(shard);
+        }
+    }
+}
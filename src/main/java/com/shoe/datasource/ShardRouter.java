@@ -0,0 +1,66 @@
+package com.shoe.datasource;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Maps categories to shards.
+ *
+ * A category lives on the shard given in {@code datasource.shards.category-map}
+ * (for pinning the large categories), otherwise on {@code categoryId mod shards}.
+ * Each shard numbers new products from {@code shard * ID_RANGE + 1}, which keeps
+ * IDs unique across shards. A product keeps its ID when it moves to another
+ * shard, so its shard is looked up in the code directory, not derived from the ID.
+ */
+public class ShardRouter {
+
+    public static final long ID_RANGE = 1_000_000_000_000L;
+
+    private final int shardCount;
+
+    private final Map<Long, Integer> pinned;
+
+    public ShardRouter(int shardCount, Map<Long, Integer> pinned) {
+        this.shardCount = shardCount;
+        this.pinned = new HashMap<>(pinned);
+        for (Map.Entry<Long, Integer> entry : pinned.entrySet()) {
+            if (entry.getValue() < 0 || entry.getValue() >= shardCount) {
+                throw new IllegalArgumentException("Category " + entry.getKey() + " is pinned to unknown shard " + entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Parse a {@code categoryId:shard,categoryId:shard} mapping
+     */
+    public static Map<Long, Integer> parsePinned(String mapping) {
+        Map<Long, Integer> pinned = new HashMap<>();
+        if (mapping == null || mapping.trim().isEmpty()) {
+            return pinned;
+        }
+        for (String pair : mapping.split(",")) {
+            String[] parts = pair.trim().split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid category shard mapping '" + pair + "'");
+            }
+            pinned.put(Long.valueOf(parts[0].trim()), Integer.valueOf(parts[1].trim()));
+        }
+        return pinned;
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    public int shardForCategory(Long categoryId) {
+        Integer shard = pinned.get(categoryId);
+        return shard != null ? shard : (int) Math.floorMod(categoryId, (long) shardCount);
+    }
+
+    /**
+     * First product ID handed out by a shard
+     */
+    public static long firstId(int shard) {
+        return shard * ID_RANGE + 1;
+    }
+}
@@ -0,0 +1,138 @@
+package com.shoe.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "change_log", indexes = {
+    @Index(name = "idx_change_log_entity_time", columnList = "entity_type, created_at"),
+    @Index(name = "idx_change_log_publish_seq", columnList = "publish_seq", unique = true)
+})
+public class ChangeLog {
+    
+    public static final String CREATE = "CREATE";
+    public static final String UPDATE = "UPDATE";
+    public static final String DELETE = "DELETE";
+    
+    // Sequence ids (not IDENTITY) so Hibernate can batch the inserts; ids are
+    // pooled per instance and say nothing about order, the feed uses publish_seq
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "change_log_seq")
+    @SequenceGenerator(name = "change_log_seq", sequenceName = "change_log_seq", allocationSize = 50)
+    private Long id;
+    
+    @Column(name = "entity_type", nullable = false, length = 50)
+    private String entityType;
+    
+    @Column(name = "entity_id", nullable = false)
+    private Long entityId;
+    
+    @Column(name = "operation", nullable = false, length = 10)
+    private String operation;
+    
+    @Column(name = "changed_fields", length = 500)
+    private String changedFields;
+    
+    @Column(name = "actor", length = 100)
+    private String actor;
+    
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+    
+    // publish sequence of the outbox event this entry was built from
+    @Column(name = "publish_seq", nullable = false)
+    private Long publishSeq;
+    
+    // Constructors
+    public ChangeLog() {}
+    
+    public ChangeLog(String entityType, Long entityId, String operation, String changedFields,
+                     String actor, LocalDateTime createdAt, Long publishSeq) {
+        this.entityType = entityType;
+        this.entityId = entityId;
+        this.operation = operation;
+        this.changedFields = changedFields;
+        this.actor = actor;
+        this.createdAt = createdAt;
+        this.publishSeq = publishSeq;
+    }
+    
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public String getEntityType() {
+        return entityType;
+    }
+    
+    public void setEntityType(String entityType) {
+        this.entityType = entityType;
+    }
+    
+    public Long getEntityId() {
+        return entityId;
+    }
+    
+    public void setEntityId(Long entityId) {
+        this.entityId = entityId;
+    }
+    
+    public String getOperation() {
+        return operation;
+    }
+    
+    public void setOperation(String operation) {
+        this.operation = operation;
+    }
+    
+    public String getChangedFields() {
+        return changedFields;
+    }
+    
+    public void setChangedFields(String changedFields) {
+        this.changedFields = changedFields;
+    }
+    
+    public String getActor() {
+        return actor;
+    }
+    
+    public void setActor(String actor) {
+        this.actor = actor;
+    }
+    
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+    
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+    
+    public Long getPublishSeq() {
+        return publishSeq;
+    }
+    
+    public void setPublishSeq(Long publishSeq) {
+        this.publishSeq = publishSeq;
+    }
+    
+    @Override
+    public String toString() {
+        return "ChangeLog{" +
+                "id=" + id +
+                ", entityType='" + entityType + '\'' +
+                ", entityId=" + entityId +
+                ", operation='" + operation + '\'' +
+                ", changedFields='" + changedFields + '\'' +
+                ", actor='" + actor + '\'' +
+                ", createdAt=" + createdAt +
+                ", publishSeq=" + publishSeq +
+                '}';
+    }
+}
@@ -0,0 +1,183 @@
+package com.shoe.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "outbox_events", indexes = {
+    @Index(name = "idx_outbox_published", columnList = "published_at, created_at, id"),
+    @Index(name = "idx_outbox_publish_seq", columnList = "publish_seq", unique = true),
+    @Index(name = "idx_outbox_origin", columnList = "origin_shard, origin_id", unique = true)
+})
+public class OutboxEvent {
+    
+    public static final String CREATED = "CREATED";
+    public static final String UPDATED = "UPDATED";
+    public static final String DELETED = "DELETED";
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_event_seq")
+    @SequenceGenerator(name = "outbox_event_seq", sequenceName = "outbox_event_seq", allocationSize = 50)
+    private Long id;
+    
+    @Column(name = "aggregate_type", nullable = false, length = 50)
+    private String aggregateType;
+    
+    @Column(name = "aggregate_id", nullable = false)
+    private Long aggregateId;
+    
+    @Column(name = "event_type", nullable = false, length = 20)
+    private String eventType;
+    
+    @Column(name = "payload", length = 4000)
+    private String payload;
+    
+    // change log details; the relay copies them into ChangeLog when it publishes
+    @Column(name = "changed_fields", length = 500)
+    private String changedFields;
+    
+    @Column(name = "actor", length = 100)
+    private String actor;
+    
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+    
+    @Column(name = "published_at")
+    private LocalDateTime publishedAt;
+    
+    // assigned by the relay in the order events are published; ids are pooled
+    // and commit out of order, so consumers resume from this instead
+    @Column(name = "publish_seq")
+    private Long publishSeq;
+    
+    // set on events the relay forwarded from a product shard's outbox: the
+    // shard and the event's id there, unique so no event is forwarded twice
+    @Column(name = "origin_shard")
+    private Integer originShard;
+    
+    @Column(name = "origin_id")
+    private Long originId;
+    
+    // Constructors
+    public OutboxEvent() {}
+    
+    public OutboxEvent(String aggregateType, Long aggregateId, String eventType, String payload,
+                       String changedFields, String actor, LocalDateTime createdAt) {
+        this.aggregateType = aggregateType;
+        this.aggregateId = aggregateId;
+        this.eventType = eventType;
+        this.payload = payload;
+        this.changedFields = changedFields;
+        this.actor = actor;
+        this.createdAt = createdAt;
+    }
+    
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public String getAggregateType() {
+        return aggregateType;
+    }
+    
+    public void setAggregateType(String aggregateType) {
+        this.aggregateType = aggregateType;
+    }
+    
+    public Long getAggregateId() {
+        return aggregateId;
+    }
+    
+    public void setAggregateId(Long aggregateId) {
+        this.aggregateId = aggregateId;
+    }
+    
+    public String getEventType() {
+        return eventType;
+    }
+    
+    public void setEventType(String eventType) {
+        this.eventType = eventType;
+    }
+    
+    public String getPayload() {
+        return payload;
+    }
+    
+    public void setPayload(String payload) {
+        this.payload = payload;
+    }
+    
+    public String getChangedFields() {
+        return changedFields;
+    }
+    
+    public void setChangedFields(String changedFields) {
+        this.changedFields = changedFields;
+    }
+    
+    public String getActor() {
+        return actor;
+    }
+    
+    public void setActor(String actor) {
+        this.actor = actor;
+    }
+    
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+    
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+    
+    public LocalDateTime getPublishedAt() {
+        return publishedAt;
+    }
+    
+    public void setPublishedAt(LocalDateTime publishedAt) {
+        this.publishedAt = publishedAt;
+    }
+    
+    public Long getPublishSeq() {
+        return publishSeq;
+    }
+    
+    public void setPublishSeq(Long publishSeq) {
+        this.publishSeq = publishSeq;
+    }
+    
+    public Integer getOriginShard() {
+        return originShard;
+    }
+    
+    public void setOriginShard(Integer originShard) {
+        this.originShard = originShard;
+    }
+    
+    public Long getOriginId() {
+        return originId;
+    }
+    
+    public void setOriginId(Long originId) {
+        this.originId = originId;
+    }
+    
+    @Override
+    public String toString() {
+        return "OutboxEvent{" +
+                "id=" + id +
+                ", aggregateType='" + aggregateType + '\'' +
+                ", aggregateId=" + aggregateId +
+                ", eventType='" + eventType + '\'' +
+                ", publishedAt=" + publishedAt +
+                ", publishSeq=" + publishSeq +
+                '}';
+    }
+}
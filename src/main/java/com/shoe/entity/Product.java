@@ -3,9 +3,15 @@ package com.shoe.entity;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "products")
+@Table(name = "products", indexes = {
+    @Index(name = "idx_products_name", columnList = "name"),
+    @Index(name = "idx_products_price", columnList = "price"),
+    @Index(name = "idx_products_category_name", columnList = "category_id, name"),
+    @Index(name = "idx_products_updated_at", columnList = "updated_at")
+})
 public class Product {
     
     @Id
@@ -33,6 +39,12 @@ public class Product {
     @NotNull(message = "Category is required")
     private Category category;
     
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+    
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+    
     // Constructors
     public Product() {}
     
@@ -84,6 +96,33 @@ public class Product {
         this.category = category;
     }
     
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+    
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+    
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+    
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+    
+    @PrePersist
+    void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = createdAt;
+    }
+    
+    @PreUpdate
+    void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+    
     @Override
     public String toString() {
         return "Product{" +
@@ -0,0 +1,40 @@
+package com.shoe.entity;
+
+import jakarta.persistence.*;
+
+/**
+ * Single row the primary stamps with the current time; a replica's copy shows
+ * how far it lags. Written by ReplicaHealthChecker over JDBC and mapped here so
+ * the table is part of the schema like every other one.
+ */
+@Entity
+@Table(name = "replication_heartbeat")
+public class ReplicationHeartbeat {
+    
+    @Id
+    private Integer id;
+    
+    // epoch milliseconds of the last stamp
+    @Column(name = "beat_at", nullable = false)
+    private Long beatAt;
+    
+    // Constructors
+    public ReplicationHeartbeat() {}
+    
+    // Getters and Setters
+    public Integer getId() {
+        return id;
+    }
+    
+    public void setId(Integer id) {
+        this.id = id;
+    }
+    
+    public Long getBeatAt() {
+        return beatAt;
+    }
+    
+    public void setBeatAt(Long beatAt) {
+        this.beatAt = beatAt;
+    }
+}
@@ -0,0 +1,71 @@
+package com.shoe.event;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import com.shoe.entity.OutboxEvent;
+
+import java.time.LocalDateTime;
+
+/**
+ * A committed change to a product or category, as delivered to consumers.
+ * The id is the outbox publish sequence, so it grows in delivery order and
+ * works as a resume cursor.
+ */
+public class ChangeEvent {
+    
+    private final Long id;
+    private final String aggregateType;
+    private final Long aggregateId;
+    private final String eventType;
+    private final String payload;
+    private final LocalDateTime createdAt;
+    
+    public ChangeEvent(Long id, String aggregateType, Long aggregateId, String eventType, String payload,
+                       LocalDateTime createdAt) {
+        this.id = id;
+        this.aggregateType = aggregateType;
+        this.aggregateId = aggregateId;
+        this.eventType = eventType;
+        this.payload = payload;
+        this.createdAt = createdAt;
+    }
+    
+    public static ChangeEvent from(OutboxEvent event) {
+        return new ChangeEvent(event.getPublishSeq(), event.getAggregateType(), event.getAggregateId(),
+                event.getEventType(), event.getPayload(), event.getCreatedAt());
+    }
+    
+    public Long getId() {
+        return id;
+    }
+    
+    public String getAggregateType() {
+        return aggregateType;
+    }
+    
+    public Long getAggregateId() {
+        return aggregateId;
+    }
+    
+    public String getEventType() {
+        return eventType;
+    }
+    
+    @JsonRawValue
+    public String getPayload() {
+        return payload;
+    }
+    
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+    
+    @Override
+    public String toString() {
+        return "ChangeEvent{" +
+                "id=" + id +
+                ", aggregateType='" + aggregateType + '\'' +
+                ", aggregateId=" + aggregateId +
+                ", eventType='" + eventType + '\'' +
+                '}';
+    }
+}
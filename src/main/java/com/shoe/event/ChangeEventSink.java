@@ -0,0 +1,18 @@
+package com.shoe.event;
+
+import java.util.List;
+
+/**
+ * Destination for change events relayed from the outbox.
+ *
+ * Every sink bean receives each batch in outbox order. A sink that throws
+ * makes the relay retry the whole batch, so delivery is at-least-once and
+ * consumers should de-duplicate on {@link ChangeEvent#getId()}.
+ */
+public interface ChangeEventSink {
+    
+    /**
+     * Publish a batch of events
+     */
+    void publish(List<ChangeEvent> events);
+}
@@ -0,0 +1,228 @@
+package com.shoe.event;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Default sink: streams change events to subscribers connected over Server-Sent Events.
+ *
+ * Publishing never blocks on a socket. Each subscriber has a bounded queue
+ * drained by a small shared pool, one drain task per subscriber at a time.
+ * A subscriber whose queue overflows is disconnected; the browser's
+ * EventSource reconnects with Last-Event-ID and replays what it missed from
+ * the outbox, so a slow client costs a reconnect instead of server memory.
+ * A replaying subscriber is registered paused: live events wait in its queue
+ * until the replay has been sent, and those the replay covered are skipped.
+ */
+@Component
+@Order(1)
+public class SseChangeEventSink implements ChangeEventSink {
+
+    private static final Logger logger = LoggerFactory.getLogger(SseChangeEventSink.class);
+
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+    private final ExecutorService sender;
+
+    private final int queueCapacity;
+
+    public SseChangeEventSink(@Value("${sse.client-queue-capacity:256}") int queueCapacity,
+                              @Value("${sse.sender-threads:2}") int senderThreads) {
+        this.queueCapacity = queueCapacity;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.sender = Executors.newFixedThreadPool(senderThreads, runnable -> {
+            Thread thread = new Thread(runnable, "sse-sender-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sender.shutdownNow();
+        for (Subscriber subscriber : subscribers) {
+            subscriber.emitter.complete();
+        }
+    }
+
+    /**
+     * Register a subscriber; it is dropped when it completes, times out or fails
+     */
+    public SseEmitter subscribe(SseEmitter emitter) {
+        register(emitter, false);
+        return emitter;
+    }
+
+    /**
+     * Register a subscriber that receives no live events until the returned
+     * subscription is resumed; subscribe this way before reading a replay so
+     * nothing published in between is lost
+     */
+    public Subscription subscribePaused(SseEmitter emitter) {
+        return new Subscription(register(emitter, true));
+    }
+
+    @Override
+    public void publish(List<ChangeEvent> events) {
+        for (ChangeEvent event : events) {
+            broadcast(event.getId(), SseEmitter.event()
+                    .id(String.valueOf(event.getId()))
+                    .name("change")
+                    .data(event));
+        }
+    }
+
+    /**
+     * Queue a named event without an id (not replayed on reconnect) for every subscriber
+     */
+    public void broadcast(String name, Object data) {
+        broadcast(0, SseEmitter.event().name(name).data(data));
+    }
+
+    /**
+     * Keep idle connections alive and detect dead ones
+     */
+    @Scheduled(fixedDelayString = "${sse.heartbeat-interval-ms:25000}")
+    public void heartbeat() {
+        broadcast(0, SseEmitter.event().comment("heartbeat"));
+    }
+
+    /**
+     * Send one event to one subscriber directly (used for replay before it is live)
+     */
+    public static void send(SseEmitter emitter, ChangeEvent event) throws IOException {
+        emitter.send(SseEmitter.event()
+                .id(String.valueOf(event.getId()))
+                .name("change")
+                .data(event));
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    private Subscriber register(SseEmitter emitter, boolean paused) {
+        Subscriber subscriber = new Subscriber(emitter, queueCapacity);
+        // a paused subscriber holds the drain flag, so broadcasts only queue for it
+        subscriber.draining.set(paused);
+        subscribers.add(subscriber);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+        return subscriber;
+    }
+
+    private void broadcast(long id, SseEmitter.SseEventBuilder builder) {
+        // build once; the resulting frames are shared read-only by all subscribers
+        Frame event = new Frame(id, builder.build());
+        for (Subscriber subscriber : subscribers) {
+            if (!subscriber.queue.offer(event)) {
+                logger.debug("SSE subscriber too slow, disconnecting");
+                subscribers.remove(subscriber);
+                subscriber.emitter.complete();
+                continue;
+            }
+            if (subscriber.draining.compareAndSet(false, true)) {
+                sender.execute(() -> drain(subscriber));
+            }
+        }
+    }
+
+    private void scheduleDrain(Subscriber subscriber) {
+        // an event may have been queued after the last poll but before the flag was cleared
+        if (!subscriber.queue.isEmpty() && subscriber.draining.compareAndSet(false, true)) {
+            sender.execute(() -> drain(subscriber));
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        try {
+            Frame event;
+            while ((event = subscriber.queue.poll()) != null) {
+                // live events a replay already delivered
+                if (event.id() > 0 && event.id() <= subscriber.replayedThrough) {
+                    continue;
+                }
+                subscriber.emitter.send(event.data());
+            }
+        } catch (IOException | IllegalStateException e) {
+            subscribers.remove(subscriber);
+            subscriber.emitter.completeWithError(e);
+            return;
+        } finally {
+            subscriber.draining.set(false);
+        }
+        scheduleDrain(subscriber);
+    }
+
+    /**
+     * A subscriber registered paused while its replay is sent
+     */
+    public final class Subscription {
+
+        private final Subscriber subscriber;
+
+        private Subscription(Subscriber subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        /**
+         * Start live delivery once the replay has been sent, skipping events up to the last replayed id
+         */
+        public void resume(long replayedThrough) {
+            subscriber.replayedThrough = replayedThrough;
+            subscriber.draining.set(false);
+            scheduleDrain(subscriber);
+        }
+
+        /**
+         * Tell the client it missed more than can be replayed and end the stream
+         */
+        public void reset() throws IOException {
+            subscribers.remove(subscriber);
+            subscriber.emitter.send(SseEmitter.event().name("reset").data("replay-truncated"));
+            subscriber.emitter.complete();
+        }
+
+        /**
+         * Drop the subscriber when its replay failed
+         */
+        public void cancel() {
+            subscribers.remove(subscriber);
+        }
+    }
+
+    private record Frame(long id, Set<ResponseBodyEmitter.DataWithMediaType> data) {
+    }
+
+    private static final class Subscriber {
+        final SseEmitter emitter;
+        final Queue<Frame> queue;
+        final AtomicBoolean draining = new AtomicBoolean();
+        // written before draining is released, read by the drain task that acquires it
+        long replayedThrough;
+
+        Subscriber(SseEmitter emitter, int capacity) {
+            this.emitter = emitter;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.shoe.idempotency;
+
+/**
+ * A request arrived while the first request with the same idempotency key was
+ * still running and did not finish in time; the client should retry later
+ */
+public class IdempotencyConflictException extends RuntimeException {
+
+    public IdempotencyConflictException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
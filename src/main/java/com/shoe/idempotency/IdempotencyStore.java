@@ -0,0 +1,188 @@
+package com.shoe.idempotency;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Remembers the outcome of writes by idempotency key, so a double submit or a
+ * client retry returns the original result instead of saving again.
+ *
+ * The first request with a key runs the write; requests with the same key
+ * that arrive while it runs wait for its result (at most
+ * {@code idempotency.wait-ms}), later ones get the stored result until it
+ * expires after {@code idempotency.ttl-ms}; a wait that runs out is an
+ * {@link IdempotencyConflictException}. A failed write is not remembered,
+ * so it can be retried. A key sent again with a different request is
+ * rejected. At most {@code idempotency.max-keys} results are kept; when full,
+ * expired and then the oldest completed results are dropped first.
+ */
+@Component
+public class IdempotencyStore {
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /** Set while one writer evicts; the others go on instead of sorting the map as well */
+    private final AtomicBoolean evicting = new AtomicBoolean();
+
+    private final long ttlNanos;
+
+    private final long waitMs;
+
+    private final int maxKeys;
+
+    private final LongAdder executed = new LongAdder();
+
+    private final LongAdder replayed = new LongAdder();
+
+    private final LongAdder rejected = new LongAdder();
+
+    public IdempotencyStore(@Value("${idempotency.ttl-ms:86400000}") long ttlMs,
+                            @Value("${idempotency.wait-ms:10000}") long waitMs,
+                            @Value("${idempotency.max-keys:100000}") int maxKeys) {
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMs);
+        this.waitMs = waitMs;
+        this.maxKeys = maxKeys;
+    }
+
+    /**
+     * Run the write once per scope and key; without a key it simply runs
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String scope, String key, String fingerprint, Supplier<T> write) {
+        if (key == null || key.isBlank()) {
+            return write.get();
+        }
+        String id = scope + ":" + key.trim();
+        Entry entry = new Entry(fingerprint);
+        while (true) {
+            Entry existing = entries.putIfAbsent(id, entry);
+            if (existing == null) {
+                break;
+            }
+            if (existing.isExpired(System.nanoTime(), ttlNanos)) {
+                entries.remove(id, existing);
+                continue;
+            }
+            if (!existing.fingerprint.equals(fingerprint)) {
+                rejected.increment();
+                // the key is client input: never echo it back
+                throw new IllegalArgumentException("This idempotency key was already used for a different request");
+            }
+            replayed.increment();
+            return (T) await(existing);
+        }
+
+        if (entries.size() > maxKeys && evicting.compareAndSet(false, true)) {
+            try {
+                evict();
+            } finally {
+                evicting.set(false);
+            }
+        }
+        executed.increment();
+        try {
+            T result = write.get();
+            entry.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            entries.remove(id, entry);
+            entry.result.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Drop results older than the TTL
+     */
+    @Scheduled(fixedDelayString = "${idempotency.cleanup-interval-ms:60000}")
+    public void evictExpired() {
+        long now = System.nanoTime();
+        entries.values().removeIf(entry -> entry.isExpired(now, ttlNanos));
+    }
+
+    /**
+     * Keys held, writes run, duplicates answered from the store and rejected key reuses
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("keys", entries.size());
+        stats.put("executed", executed.sum());
+        stats.put("replayed", replayed.sum());
+        stats.put("rejected", rejected.sum());
+        return stats;
+    }
+
+    /**
+     * Join request fields into a fingerprint that tells two requests apart
+     */
+    public static String fingerprint(Object... fields) {
+        StringBuilder fingerprint = new StringBuilder();
+        for (Object field : fields) {
+            fingerprint.append(field).append('\u0000');
+        }
+        return fingerprint.toString();
+    }
+
+    private Object await(Entry entry) {
+        try {
+            return entry.result.get(waitMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new IdempotencyConflictException("A request with this idempotency key is still being processed", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IdempotencyConflictException("Interrupted while waiting for a request with the same idempotency key", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private void evict() {
+        evictExpired();
+        // still full: drop the oldest completed results (writes in progress are never dropped)
+        Iterator<Map.Entry<String, Entry>> oldest = entries.entrySet().stream()
+                .filter(candidate -> candidate.getValue().completedAt != 0)
+                .sorted(Map.Entry.comparingByValue((a, b) -> Long.compare(a.completedAt, b.completedAt)))
+                .limit(Math.max(0, entries.size() - maxKeys * 9L / 10))
+                .iterator();
+        while (oldest.hasNext()) {
+            Map.Entry<String, Entry> candidate = oldest.next();
+            entries.remove(candidate.getKey(), candidate.getValue());
+        }
+    }
+
+    private static final class Entry {
+        final String fingerprint;
+        final CompletableFuture<Object> result = new CompletableFuture<>();
+        volatile long completedAt;
+
+        Entry(String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+
+        void complete(Object value) {
+            completedAt = System.nanoTime();
+            result.complete(value);
+        }
+
+        boolean isExpired(long now, long ttlNanos) {
+            long completed = completedAt;
+            return completed != 0 && now - completed >= ttlNanos;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.shoe.ratelimit;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caps the number of expensive requests in flight, adapting the cap to
+ * observed latency (additive increase, multiplicative decrease).
+ *
+ * Latencies are summed per window of {@code windowSize} completions. When a
+ * window's average exceeds {@code tolerance} times the best average seen
+ * recently, the database is queueing and the limit shrinks by 10%; otherwise
+ * it grows by one. The baseline decays slowly so it follows real changes in
+ * query cost. All state is held in atomics; one completing request at a time
+ * closes a window, the others keep counting.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final int windowSize;
+
+    private final double tolerance;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private volatile int limit;
+
+    private final LongAdder windowCount = new LongAdder();
+
+    private final LongAdder windowNanos = new LongAdder();
+
+    private final AtomicBoolean adjusting = new AtomicBoolean();
+
+    private final AtomicLong baselineNanos = new AtomicLong(Long.MAX_VALUE);
+
+    private volatile long lastAverageNanos;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, int windowSize, double tolerance) {
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.windowSize = windowSize;
+        this.tolerance = tolerance;
+    }
+
+    /**
+     * Claim a slot; false when the current limit is reached
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Give the slot back and record how long the request took
+     */
+    public void release(long latencyNanos) {
+        inFlight.decrementAndGet();
+        windowNanos.add(latencyNanos);
+        windowCount.increment();
+        if (windowCount.sum() >= windowSize && adjusting.compareAndSet(false, true)) {
+            try {
+                adjust();
+            } finally {
+                adjusting.set(false);
+            }
+        }
+    }
+
+    private void adjust() {
+        long count = windowCount.sumThenReset();
+        long total = windowNanos.sumThenReset();
+        if (count == 0) {
+            return;
+        }
+        long average = total / count;
+        lastAverageNanos = average;
+
+        // let the baseline drift up by 1% per window so it tracks lasting changes
+        long baseline = baselineNanos.updateAndGet(previous ->
+                previous == Long.MAX_VALUE ? average : Math.min(average, previous + previous / 100));
+
+        int current = limit;
+        if (average > baseline * tolerance) {
+            limit = Math.max(minLimit, (int) (current * 0.9));
+        } else if (inFlight.get() >= current / 2) {
+            // only grow while the limit is actually being used
+            limit = Math.min(maxLimit, current + 1);
+        }
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getBaselineMillis() {
+        long baseline = baselineNanos.get();
+        return baseline == Long.MAX_VALUE ? 0 : baseline / 1_000_000;
+    }
+
+    public long getLastAverageMillis() {
+        return lastAverageNanos / 1_000_000;
+    }
+}
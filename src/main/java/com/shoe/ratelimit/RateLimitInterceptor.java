@@ -0,0 +1,212 @@
+package com.shoe.ratelimit;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Protects the expensive endpoints: searches (full-scan LIKE queries) and
+ * save/delete. Each kind has a token bucket per client (429 when exceeded)
+ * and one shared by all clients (503), and both kinds share an adaptive
+ * concurrency limit (503 when the database is already saturated).
+ * Plain browsing is never limited.
+ */
+@Component
+public class RateLimitInterceptor implements HandlerInterceptor {
+
+    private static final String STARTED_AT = RateLimitInterceptor.class.getName() + ".startedAt";
+
+    private final boolean enabled;
+
+    private final boolean trustForwardedFor;
+
+    private final int maxClients;
+
+    private final Policy search;
+
+    private final Policy write;
+
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+
+    private final LongAdder allowed = new LongAdder();
+
+    private final LongAdder shed = new LongAdder();
+
+    public RateLimitInterceptor(@Value("${ratelimit.enabled:true}") boolean enabled,
+                                @Value("${ratelimit.trust-forwarded-for:false}") boolean trustForwardedFor,
+                                @Value("${ratelimit.max-clients:10000}") int maxClients,
+                                @Value("${ratelimit.search.client-rate:5}") double searchClientRate,
+                                @Value("${ratelimit.search.client-burst:10}") int searchClientBurst,
+                                @Value("${ratelimit.search.global-rate:50}") double searchGlobalRate,
+                                @Value("${ratelimit.search.global-burst:100}") int searchGlobalBurst,
+                                @Value("${ratelimit.write.client-rate:2}") double writeClientRate,
+                                @Value("${ratelimit.write.client-burst:5}") int writeClientBurst,
+                                @Value("${ratelimit.write.global-rate:20}") double writeGlobalRate,
+                                @Value("${ratelimit.write.global-burst:40}") int writeGlobalBurst,
+                                @Value("${ratelimit.concurrency.initial-limit:20}") int initialLimit,
+                                @Value("${ratelimit.concurrency.min-limit:4}") int minLimit,
+                                @Value("${ratelimit.concurrency.max-limit:64}") int maxLimit,
+                                @Value("${ratelimit.concurrency.window:50}") int window,
+                                @Value("${ratelimit.concurrency.tolerance:2.0}") double tolerance) {
+        this.enabled = enabled;
+        this.trustForwardedFor = trustForwardedFor;
+        this.maxClients = maxClients;
+        this.search = new Policy(searchClientRate, searchClientBurst, searchGlobalRate, searchGlobalBurst);
+        this.write = new Policy(writeClientRate, writeClientBurst, writeGlobalRate, writeGlobalBurst);
+        this.concurrencyLimiter = new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit, window, tolerance);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws IOException {
+        Policy policy = enabled ? policyFor(request) : null;
+        if (policy == null) {
+            return true;
+        }
+
+        TokenBucket client = policy.clientBucket(clientOf(request), maxClients);
+        if (client != null && !client.tryAcquire()) {
+            policy.limitedClient.increment();
+            reject(response, HttpStatus.TOO_MANY_REQUESTS, client.nanosUntilAvailable(),
+                    "Too many requests, please slow down");
+            return false;
+        }
+        if (!policy.global.tryAcquire()) {
+            policy.limitedGlobal.increment();
+            reject(response, HttpStatus.SERVICE_UNAVAILABLE, policy.global.nanosUntilAvailable(),
+                    "The server is busy, please try again shortly");
+            return false;
+        }
+        if (!concurrencyLimiter.tryAcquire()) {
+            shed.increment();
+            reject(response, HttpStatus.SERVICE_UNAVAILABLE, TimeUnit.SECONDS.toNanos(1),
+                    "The server is busy, please try again shortly");
+            return false;
+        }
+
+        allowed.increment();
+        request.setAttribute(STARTED_AT, System.nanoTime());
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Object startedAt = request.getAttribute(STARTED_AT);
+        if (startedAt != null) {
+            request.removeAttribute(STARTED_AT);
+            concurrencyLimiter.release(System.nanoTime() - (Long) startedAt);
+        }
+    }
+
+    /**
+     * Drop per-client buckets that have refilled completely
+     */
+    @Scheduled(fixedDelayString = "${ratelimit.cleanup-interval-ms:60000}")
+    public void evictIdleClients() {
+        search.evictIdle();
+        write.evictIdle();
+    }
+
+    /**
+     * Limiter counters, per endpoint kind, and the current concurrency limit
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("allowed", allowed.sum());
+        stats.put("search", search.stats());
+        stats.put("write", write.stats());
+        stats.put("shed", shed.sum());
+        stats.put("concurrencyLimit", concurrencyLimiter.getLimit());
+        stats.put("inFlight", concurrencyLimiter.getInFlight());
+        stats.put("baselineLatencyMs", concurrencyLimiter.getBaselineMillis());
+        stats.put("lastLatencyMs", concurrencyLimiter.getLastAverageMillis());
+        return stats;
+    }
+
+    private Policy policyFor(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if ("POST".equals(request.getMethod()) && path.endsWith("/save")) {
+            return write;
+        }
+        if (path.contains("/delete/")) {
+            return write;
+        }
+        String term = request.getParameter("search");
+        if ("GET".equals(request.getMethod()) && term != null && !term.trim().isEmpty()) {
+            return search;
+        }
+        return null;
+    }
+
+    private String clientOf(HttpServletRequest request) {
+        if (trustForwardedFor) {
+            String forwarded = request.getHeader("X-Forwarded-For");
+            if (forwarded != null && !forwarded.isBlank()) {
+                int comma = forwarded.indexOf(',');
+                return (comma < 0 ? forwarded : forwarded.substring(0, comma)).trim();
+            }
+        }
+        return request.getRemoteAddr();
+    }
+
+    private static void reject(HttpServletResponse response, HttpStatus status, long retryAfterNanos, String message) throws IOException {
+        long seconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(retryAfterNanos + 999_999_999L));
+        response.setHeader("Retry-After", String.valueOf(seconds));
+        response.sendError(status.value(), message);
+    }
+
+    private static final class Policy {
+        final double clientRate;
+        final int clientBurst;
+        final TokenBucket global;
+        final ConcurrentHashMap<String, TokenBucket> clients = new ConcurrentHashMap<>();
+        final LongAdder limitedClient = new LongAdder();
+        final LongAdder limitedGlobal = new LongAdder();
+
+        Policy(double clientRate, int clientBurst, double globalRate, int globalBurst) {
+            this.clientRate = clientRate;
+            this.clientBurst = clientBurst;
+            this.global = new TokenBucket(globalRate, globalBurst);
+        }
+
+        /**
+         * The client's bucket, or null when too many clients are tracked (the global bucket still applies)
+         */
+        TokenBucket clientBucket(String client, int maxClients) {
+            TokenBucket bucket = clients.get(client);
+            if (bucket != null) {
+                return bucket;
+            }
+            if (clients.size() >= maxClients) {
+                evictIdle();
+                if (clients.size() >= maxClients) {
+                    return null;
+                }
+            }
+            return clients.computeIfAbsent(client, key -> new TokenBucket(clientRate, clientBurst));
+        }
+
+        void evictIdle() {
+            clients.values().removeIf(TokenBucket::isFull);
+        }
+
+        Map<String, Object> stats() {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("clients", clients.size());
+            stats.put("limitedClient", limitedClient.sum());
+            stats.put("limitedGlobal", limitedGlobal.sum());
+            return stats;
+        }
+    }
+}
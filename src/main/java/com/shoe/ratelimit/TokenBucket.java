@@ -0,0 +1,59 @@
+package com.shoe.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket in its "virtual scheduling" form: the whole state is
+ * one timestamp, the time at which the bucket would be full again. Taking a
+ * token pushes it forward by one refill interval; the request is refused when
+ * that would put it more than {@code burst} intervals ahead of now.
+ */
+public class TokenBucket {
+
+    private final long intervalNanos;
+
+    private final long capacityNanos;
+
+    private final AtomicLong fullAt;
+
+    public TokenBucket(double permitsPerSecond, int burst) {
+        if (permitsPerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("Rate and burst must be positive");
+        }
+        this.intervalNanos = (long) (1_000_000_000L / permitsPerSecond);
+        this.capacityNanos = intervalNanos * burst;
+        this.fullAt = new AtomicLong(System.nanoTime());
+    }
+
+    /**
+     * Take one token if available
+     */
+    public boolean tryAcquire() {
+        long now = System.nanoTime();
+        while (true) {
+            long current = fullAt.get();
+            long next = Math.max(current, now) + intervalNanos;
+            if (next - now > capacityNanos) {
+                return false;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Nanoseconds until the next token is available (0 when one is available now)
+     */
+    public long nanosUntilAvailable() {
+        long now = System.nanoTime();
+        return Math.max(0, fullAt.get() + intervalNanos - now - capacityNanos);
+    }
+
+    /**
+     * Whether the bucket has refilled completely, so dropping it loses nothing
+     */
+    public boolean isFull() {
+        return fullAt.get() - System.nanoTime() <= 0;
+    }
+}
@@ -0,0 +1,13 @@
+package com.shoe.repository;
+
+import com.shoe.entity.Category;
+
+/**
+ * Read model of a category without its products (returned by the JSON APIs)
+ */
+public record CategoryDetail(Long id, String name, String description) {
+
+    public static CategoryDetail of(Category category) {
+        return new CategoryDetail(category.getId(), category.getName(), category.getDescription());
+    }
+}
@@ -0,0 +1,30 @@
+package com.shoe.repository;
+
+import com.shoe.entity.ChangeLog;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ChangeLogRepository extends JpaRepository<ChangeLog, Long> {
+    
+    /**
+     * Find changes of an entity type within a time range, oldest first
+     */
+    Page<ChangeLog> findByEntityTypeAndCreatedAtBetweenOrderByCreatedAtAsc(String entityType, LocalDateTime from,
+                                                                          LocalDateTime to, Pageable pageable);
+    
+    /**
+     * Find changes of all entity types within a time range, oldest first
+     */
+    Page<ChangeLog> findByCreatedAtBetweenOrderByCreatedAtAsc(LocalDateTime from, LocalDateTime to, Pageable pageable);
+    
+    /**
+     * Find changes published after the given publish sequence, in publish order (change feed)
+     */
+    List<ChangeLog> findByPublishSeqGreaterThanOrderByPublishSeqAsc(Long publishSeq, Pageable pageable);
+}
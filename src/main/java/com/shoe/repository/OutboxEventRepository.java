@@ -0,0 +1,48 @@
+package com.shoe.repository;
+
+import com.shoe.entity.OutboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+    
+    /**
+     * Find unpublished events in the order they were written (ids are pooled per instance,
+     * and events forwarded from product shards get theirs later, so order by time first)
+     */
+    List<OutboxEvent> findByPublishedAtIsNullOrderByCreatedAtAscIdAsc(Pageable pageable);
+    
+    /**
+     * Find events published after the given publish sequence (replay for reconnecting consumers)
+     */
+    List<OutboxEvent> findByPublishSeqGreaterThanOrderByPublishSeqAsc(Long publishSeq, Pageable pageable);
+    
+    /**
+     * Shard-local ids of the given events from a product shard that were already forwarded here
+     */
+    @Query("SELECT e.originId FROM OutboxEvent e WHERE e.originShard = :shard AND e.originId IN :ids")
+    List<Long> findForwardedIds(@Param("shard") Integer shard, @Param("ids") List<Long> ids);
+    
+    /**
+     * Highest publish sequence assigned so far, 0 if nothing was published
+     */
+    @Query("SELECT COALESCE(MAX(e.publishSeq), 0) FROM OutboxEvent e")
+    long findMaxPublishSeq();
+    
+    /**
+     * Delete published events older than the given time; the latest published
+     * event is kept so the publish sequence never restarts below a client's cursor
+     */
+    @Modifying
+    @Query("DELETE FROM OutboxEvent e WHERE e.publishedAt < :before " +
+           "AND e.publishSeq < (SELECT MAX(o.publishSeq) FROM OutboxEvent o)")
+    int deletePublishedBefore(@Param("before") LocalDateTime before);
+}
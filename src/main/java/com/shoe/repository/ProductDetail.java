@@ -0,0 +1,20 @@
+package com.shoe.repository;
+
+import com.shoe.entity.Product;
+
+import java.math.BigDecimal;
+
+/**
+ * Read model of the product detail page: the product and its category, read in one query
+ */
+public record ProductDetail(Long id, String code, String name, BigDecimal price,
+                            Long categoryId, String categoryName, String categoryDescription) {
+
+    /**
+     * Detail view of a product whose category is already loaded
+     */
+    public static ProductDetail of(Product product) {
+        return new ProductDetail(product.getId(), product.getCode(), product.getName(), product.getPrice(),
+                product.getCategory().getId(), product.getCategory().getName(), product.getCategory().getDescription());
+    }
+}
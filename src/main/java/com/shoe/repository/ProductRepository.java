@@ -3,31 +3,44 @@ package com.shoe.repository;
 import com.shoe.entity.Product;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long> {
     
+    /**
+     * Find a page of products with their categories, without a count (totals come from ProductCounts)
+     */
+    @EntityGraph(attributePaths = "category")
+    List<Product> findAllBy(Pageable pageable);
+    
     /**
      * Find products by name containing the given string (case-insensitive)
      */
+    @EntityGraph(attributePaths = "category")
     Page<Product> findByNameContainingIgnoreCase(String name, Pageable pageable);
     
     /**
-     * Find products by category
+     * Find a page of products by category, without a count
      */
-    Page<Product> findByCategoryId(Long categoryId, Pageable pageable);
+    @EntityGraph(attributePaths = "category")
+    List<Product> findByCategoryId(Long categoryId, Pageable pageable);
     
     /**
-     * Find products by category and name containing the given string (case-insensitive)
+     * Find a page of products by category and name containing the given string (case-insensitive), without a count
      */
-    Page<Product> findByCategoryIdAndNameContainingIgnoreCase(Long categoryId, String name, Pageable pageable);
+    @EntityGraph(attributePaths = "category")
+    List<Product> findByCategoryIdAndNameContainingIgnoreCase(Long categoryId, String name, Pageable pageable);
     
     /**
      * Find all products ordered by name
@@ -67,10 +80,160 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     List<Product> findByCategoryIdWithCategory(@Param("categoryId") Long categoryId);
     
     /**
-     * Search products by name or code
+     * Count products by category
+     */
+    long countByCategoryId(Long categoryId);
+    
+    /**
+     * Search a page of products by name or code, without a count
      */
     @Query("SELECT p FROM Product p LEFT JOIN FETCH p.category WHERE " +
            "LOWER(p.name) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR " +
            "LOWER(p.code) LIKE LOWER(CONCAT('%', :searchTerm, '%'))")
-    Page<Product> searchProducts(@Param("searchTerm") String searchTerm, Pageable pageable);
+    List<Product> searchProducts(@Param("searchTerm") String searchTerm, Pageable pageable);
+    
+    /**
+     * Count products matching a name or code search, stopping at the limit
+     * (the dialect renders the row limit, so this works on H2 and SQL Server alike)
+     */
+    @Query("SELECT COUNT(*) FROM (SELECT p.id AS id FROM Product p WHERE " +
+           "LOWER(p.name) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR " +
+           "LOWER(p.code) LIKE LOWER(CONCAT('%', :searchTerm, '%')) " +
+           "LIMIT :limit) matched")
+    long countSearchProducts(@Param("searchTerm") String searchTerm, @Param("limit") int limit);
+    
+    /**
+     * Insert a product under the ID it already has (a product moved to another shard keeps its ID)
+     */
+    @Modifying
+    @Query(value = "INSERT INTO products (id, code, name, price, category_id, created_at, updated_at) " +
+                   "VALUES (:id, :code, :name, :price, :categoryId, :createdAt, :updatedAt)", nativeQuery = true)
+    int insertWithId(@Param("id") Long id,
+                     @Param("code") String code,
+                     @Param("name") String name,
+                     @Param("price") BigDecimal price,
+                     @Param("categoryId") Long categoryId,
+                     @Param("createdAt") LocalDateTime createdAt,
+                     @Param("updatedAt") LocalDateTime updatedAt);
+    
+    /**
+     * Filter a page of products by category, name or code and an inclusive price range (null filters
+     * are ignored), without a count
+     */
+    @EntityGraph(attributePaths = "category")
+    @Query("SELECT p FROM Product p WHERE " +
+           "(:categoryId IS NULL OR p.category.id = :categoryId) AND " +
+           "(:searchTerm IS NULL OR LOWER(p.name) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR " +
+           "LOWER(p.code) LIKE LOWER(CONCAT('%', :searchTerm, '%'))) AND " +
+           "(:minPrice IS NULL OR p.price >= :minPrice) AND " +
+           "(:maxPrice IS NULL OR p.price <= :maxPrice)")
+    List<Product> filterProducts(@Param("categoryId") Long categoryId,
+                                 @Param("searchTerm") String searchTerm,
+                                 @Param("minPrice") BigDecimal minPrice,
+                                 @Param("maxPrice") BigDecimal maxPrice,
+                                 Pageable pageable);
+    
+    /**
+     * Count the products filterProducts would return, stopping at the limit
+     */
+    @Query("SELECT COUNT(*) FROM (SELECT p.id AS id FROM Product p WHERE " +
+           "(:categoryId IS NULL OR p.category.id = :categoryId) AND " +
+           "(:searchTerm IS NULL OR LOWER(p.name) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR " +
+           "LOWER(p.code) LIKE LOWER(CONCAT('%', :searchTerm, '%'))) AND " +
+           "(:minPrice IS NULL OR p.price >= :minPrice) AND " +
+           "(:maxPrice IS NULL OR p.price <= :maxPrice) " +
+           "LIMIT :limit) matched")
+    long countFilterProducts(@Param("categoryId") Long categoryId,
+                             @Param("searchTerm") String searchTerm,
+                             @Param("minPrice") BigDecimal minPrice,
+                             @Param("maxPrice") BigDecimal maxPrice,
+                             @Param("limit") int limit);
+    
+    /**
+     * Find a page of products by category and name within an inclusive price range (null bounds and name
+     * are ignored), without a count
+     */
+    @EntityGraph(attributePaths = "category")
+    @Query("SELECT p FROM Product p WHERE p.category.id = :categoryId AND " +
+           "(:name IS NULL OR LOWER(p.name) LIKE LOWER(CONCAT('%', :name, '%'))) AND " +
+           "(:minPrice IS NULL OR p.price >= :minPrice) AND " +
+           "(:maxPrice IS NULL OR p.price <= :maxPrice)")
+    List<Product> findByCategoryIdInPriceRange(@Param("categoryId") Long categoryId,
+                                               @Param("name") String name,
+                                               @Param("minPrice") BigDecimal minPrice,
+                                               @Param("maxPrice") BigDecimal maxPrice,
+                                               Pageable pageable);
+    
+    /**
+     * Count the products findByCategoryIdInPriceRange would return, stopping at the limit
+     */
+    @Query("SELECT COUNT(*) FROM (SELECT p.id AS id FROM Product p WHERE p.category.id = :categoryId AND " +
+           "(:name IS NULL OR LOWER(p.name) LIKE LOWER(CONCAT('%', :name, '%'))) AND " +
+           "(:minPrice IS NULL OR p.price >= :minPrice) AND " +
+           "(:maxPrice IS NULL OR p.price <= :maxPrice) " +
+           "LIMIT :limit) matched")
+    long countByCategoryIdInPriceRange(@Param("categoryId") Long categoryId,
+                                       @Param("name") String name,
+                                       @Param("minPrice") BigDecimal minPrice,
+                                       @Param("maxPrice") BigDecimal maxPrice,
+                                       @Param("limit") int limit);
+    
+    /**
+     * Product detail page: the product and its category in one query
+     */
+    @Query("SELECT new com.shoe.repository.ProductDetail(p.id, p.code, p.name, p.price, c.id, c.name, c.description) " +
+           "FROM Product p JOIN p.category c WHERE p.id = :id")
+    Optional<ProductDetail> findDetailById(@Param("id") Long id);
+    
+    /**
+     * Product rows of a category page, optionally filtered by name (case-insensitive), without a count
+     */
+    @Query("SELECT new com.shoe.repository.ProductRow(p.id, p.code, p.name, p.price) FROM Product p " +
+           "WHERE p.category.id = :categoryId AND " +
+           "(:name IS NULL OR LOWER(p.name) LIKE LOWER(CONCAT('%', :name, '%')))")
+    List<ProductRow> findRowsByCategoryId(@Param("categoryId") Long categoryId,
+                                          @Param("name") String name,
+                                          Pageable pageable);
+    
+    /**
+     * Count products of a category whose name contains the given string, stopping at the limit
+     */
+    @Query("SELECT COUNT(*) FROM (SELECT p.id AS id FROM Product p WHERE p.category.id = :categoryId AND " +
+           "LOWER(p.name) LIKE LOWER(CONCAT('%', :name, '%')) " +
+           "LIMIT :limit) matched")
+    long countByCategoryIdAndName(@Param("categoryId") Long categoryId, @Param("name") String name, @Param("limit") int limit);
+    
+    /**
+     * Category facet counts: [categoryId, categoryName, count] per category with matching products
+     */
+    @Query("SELECT p.category.id, p.category.name, COUNT(p) FROM Product p WHERE " +
+           "(:searchTerm IS NULL OR LOWER(p.name) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR " +
+           "LOWER(p.code) LIKE LOWER(CONCAT('%', :searchTerm, '%'))) AND " +
+           "(:minPrice IS NULL OR p.price >= :minPrice) AND " +
+           "(:maxPrice IS NULL OR p.price <= :maxPrice) " +
+           "GROUP BY p.category.id, p.category.name ORDER BY p.category.name")
+    List<Object[]> countByCategoryFacet(@Param("searchTerm") String searchTerm,
+                                        @Param("minPrice") BigDecimal minPrice,
+                                        @Param("maxPrice") BigDecimal maxPrice);
+    
+    /**
+     * Price bucket facet counts as a single row, one column per bucket; the bounds are
+     * the exclusive upper bounds of the first four buckets (ProductFacets.priceBounds())
+     */
+    @Query("SELECT " +
+           "SUM(CASE WHEN p.price < :bound1 THEN 1 ELSE 0 END), " +
+           "SUM(CASE WHEN p.price >= :bound1 AND p.price < :bound2 THEN 1 ELSE 0 END), " +
+           "SUM(CASE WHEN p.price >= :bound2 AND p.price < :bound3 THEN 1 ELSE 0 END), " +
+           "SUM(CASE WHEN p.price >= :bound3 AND p.price < :bound4 THEN 1 ELSE 0 END), " +
+           "SUM(CASE WHEN p.price >= :bound4 THEN 1 ELSE 0 END) " +
+           "FROM Product p WHERE " +
+           "(:categoryId IS NULL OR p.category.id = :categoryId) AND " +
+           "(:searchTerm IS NULL OR LOWER(p.name) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR " +
+           "LOWER(p.code) LIKE LOWER(CONCAT('%', :searchTerm, '%')))")
+    List<Object[]> countByPriceBucket(@Param("categoryId") Long categoryId,
+                                      @Param("searchTerm") String searchTerm,
+                                      @Param("bound1") BigDecimal bound1,
+                                      @Param("bound2") BigDecimal bound2,
+                                      @Param("bound3") BigDecimal bound3,
+                                      @Param("bound4") BigDecimal bound4);
 }
@@ -0,0 +1,15 @@
+package com.shoe.repository;
+
+import com.shoe.entity.Product;
+
+import java.math.BigDecimal;
+
+/**
+ * Read model of a product row on the category page (no category columns)
+ */
+public record ProductRow(Long id, String code, String name, BigDecimal price) {
+
+    public static ProductRow of(Product product) {
+        return new ProductRow(product.getId(), product.getCode(), product.getName(), product.getPrice());
+    }
+}
@@ -0,0 +1,30 @@
+package com.shoe.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Work that must only happen once the surrounding transaction has committed
+ * (in-memory caches, counters, shard copies, the change log queue).
+ */
+public final class AfterCommit {
+
+    private AfterCommit() {}
+
+    /**
+     * Run the action after the current transaction commits; nothing runs on
+     * rollback. Without a transaction the action runs right away.
+     */
+    public static void run(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,871 @@
+package com.shoe.service;
+
+import com.shoe.datasource.ProductShards;
+import com.shoe.entity.Category;
+import com.shoe.entity.Product;
+import com.shoe.repository.CategoryRepository;
+import com.shoe.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.UnaryOperator;
+
+/**
+ * In-memory read model of the catalog.
+ *
+ * Products are held in columnar arrays (ids, codes, names, prices in cents,
+ * category ids) with prebuilt sort indexes, so browse reads can be paged,
+ * sorted and filtered without querying the database. The snapshot is loaded
+ * once at startup and kept current by the deltas the services hand it after
+ * each committed save or delete. A delta copies the columns and inserts or
+ * removes its row in each index by binary search, so it never re-sorts; deltas
+ * that commit before the load has finished are held back and replayed on top
+ * of the loaded state.
+ *
+ * Enabled with {@code catalog.snapshot.enabled=true}. Every read returns
+ * {@link Optional#empty()} when it cannot be answered from memory (snapshot
+ * not loaded yet, unsupported sort), and callers fall back to the repositories.
+ */
+@Component
+@ConditionalOnProperty(name = "catalog.snapshot.enabled", havingValue = "true")
+public class CatalogSnapshot {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogSnapshot.class);
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired(required = false)
+    private ProductShards productShards;
+
+    private final Object writeLock = new Object();
+
+    private volatile Columns columns;
+
+    /** Deltas committed before the snapshot was loaded; guarded by writeLock */
+    private final List<UnaryOperator<Columns>> pending = new ArrayList<>();
+
+    /**
+     * Build the snapshot from the database once the application has started
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void load() {
+        List<Category> categories = categoryRepository.findAll();
+        List<Product> products = productShards != null
+                ? productShards.gatherList(productRepository::findAllWithCategory, Sort.by("id"))
+                : productRepository.findAllWithCategory();
+
+        Map<Long, Category> categoryMap = new HashMap<>();
+        for (Category category : categories) {
+            categoryMap.put(category.getId(), copyOf(category));
+        }
+
+        products.sort(Comparator.comparing(Product::getId));
+        int size = products.size();
+        long[] ids = new long[size];
+        String[] codes = new String[size];
+        String[] names = new String[size];
+        long[] prices = new long[size];
+        long[] categoryIds = new long[size];
+        for (int i = 0; i < size; i++) {
+            Product product = products.get(i);
+            ids[i] = product.getId();
+            codes[i] = product.getCode();
+            names[i] = product.getName();
+            prices[i] = PriceCents.toCents(product.getPrice());
+            categoryIds[i] = product.getCategory().getId();
+        }
+
+        int replayed = install(ids, codes, names, prices, categoryIds, categoryMap);
+
+        Columns loaded = columns;
+        long bytes = loaded.estimatedBytes();
+        logger.info("Catalog snapshot loaded: {} products, {} categories, {} deltas replayed, ~{} KB (~{} MB per million products)",
+                loaded.size, loaded.categories.size(), replayed, bytes / 1024,
+                loaded.size == 0 ? 0 : bytes * 1_000_000L / loaded.size / (1024 * 1024));
+    }
+
+    /**
+     * Build the columns from rows in ID order and make them current, replaying
+     * the saves and deletes that committed while the rows were being read.
+     * Returns the number of deltas replayed.
+     */
+    int install(long[] ids, String[] codes, String[] names, long[] prices, long[] categoryIds,
+                Map<Long, Category> categories) {
+        Columns loaded = Columns.build(ids.length, ids, codes, names, prices, categoryIds, categories);
+        synchronized (writeLock) {
+            int replayed = pending.size();
+            for (UnaryOperator<Columns> delta : pending) {
+                loaded = delta.apply(loaded);
+            }
+            pending.clear();
+            columns = loaded;
+            return replayed;
+        }
+    }
+
+    // Product reads
+
+    /**
+     * Find a product by ID
+     */
+    public Optional<Optional<Product>> findProduct(Long id) {
+        Columns current = columns;
+        if (current == null || id == null) {
+            return Optional.empty();
+        }
+        int row = Arrays.binarySearch(current.ids, 0, current.size, id);
+        return Optional.of(row < 0 ? Optional.empty() : Optional.of(current.product(row)));
+    }
+
+    /**
+     * All products ordered by name
+     */
+    public Optional<List<Product>> findAllProducts() {
+        Columns current = columns;
+        if (current == null) {
+            return Optional.empty();
+        }
+        List<Product> result = new ArrayList<>(current.size);
+        for (int i = 0; i < current.size; i++) {
+            result.add(current.product(current.byName[i]));
+        }
+        return Optional.of(result);
+    }
+
+    /**
+     * All products of a category ordered by name
+     */
+    public Optional<List<Product>> findProductsByCategory(Long categoryId) {
+        Columns current = columns;
+        if (current == null) {
+            return Optional.empty();
+        }
+        int[] rows = current.byCategory.getOrDefault(categoryId, EMPTY_ROWS);
+        List<Product> result = new ArrayList<>(rows.length);
+        for (int row : rows) {
+            result.add(current.product(row));
+        }
+        return Optional.of(result);
+    }
+
+    /**
+     * Page of products, optionally restricted to a category and to a search term
+     * matched against the name (and the code when {@code matchCode} is set)
+     */
+    public Optional<Page<Product>> findProducts(Long categoryId, String searchTerm, boolean matchCode,
+                                                Pageable pageable) {
+        return findProducts(categoryId, searchTerm, matchCode, PriceCents.NO_MIN, PriceCents.NO_MAX, pageable);
+    }
+
+    /**
+     * Page of products as above, further restricted to an inclusive price range
+     * given in cents (see {@link PriceCents#minBound} and {@link PriceCents#maxBound})
+     */
+    public Optional<Page<Product>> findProducts(Long categoryId, String searchTerm, boolean matchCode,
+                                                long minCents, long maxCents, Pageable pageable) {
+        Columns current = columns;
+        if (current == null) {
+            return Optional.empty();
+        }
+        ProductOrder order = ProductOrder.of(pageable.getSort());
+        if (order == null) {
+            return Optional.empty();
+        }
+        String term = searchTerm == null || searchTerm.isEmpty() ? null : searchTerm;
+
+        int[] index;
+        boolean filterCategory = categoryId != null;
+        if (filterCategory && order.key == ProductOrder.NAME) {
+            index = current.byCategory.getOrDefault(categoryId, EMPTY_ROWS);
+            filterCategory = false;
+        } else {
+            index = current.index(order.key);
+        }
+
+        int start = 0;
+        int length = index == null ? current.size : index.length;
+        boolean filterPrice = minCents != PriceCents.NO_MIN || maxCents != PriceCents.NO_MAX;
+        if (filterPrice && index == current.byPrice) {
+            // price-ordered scan: narrow to the matching range by binary search
+            start = PriceCents.lowerBound(index, length, current.prices, minCents);
+            length = PriceCents.upperBound(index, length, current.prices, maxCents);
+            filterPrice = false;
+        }
+
+        long offset = pageable.isPaged() ? pageable.getOffset() : 0;
+        int limit = pageable.isPaged() ? pageable.getPageSize() : Integer.MAX_VALUE;
+        List<Product> content = new ArrayList<>(Math.min(limit, 64));
+        long matched = 0;
+        for (int i = start; i < length; i++) {
+            int position = order.descending ? start + length - 1 - i : i;
+            int row = index == null ? position : index[position];
+            if (filterCategory && current.categoryIds[row] != categoryId) {
+                continue;
+            }
+            if (filterPrice && (current.prices[row] < minCents || current.prices[row] > maxCents)) {
+                continue;
+            }
+            if (term != null && !containsIgnoreCase(current.names[row], term)
+                    && !(matchCode && containsIgnoreCase(current.codes[row], term))) {
+                continue;
+            }
+            if (matched >= offset && content.size() < limit) {
+                content.add(current.product(row));
+            }
+            matched++;
+        }
+        return Optional.of(new PageImpl<>(content, pageable, matched));
+    }
+
+    /**
+     * Category and price-bucket facet counts in a single pass over the columns.
+     * Category counts ignore {@code categoryId}; price counts ignore the price range.
+     */
+    public Optional<ProductFacets> facets(Long categoryId, String searchTerm, long minCents, long maxCents) {
+        Columns current = columns;
+        if (current == null) {
+            return Optional.empty();
+        }
+        String term = searchTerm == null || searchTerm.isEmpty() ? null : searchTerm;
+        boolean filterPrice = minCents != PriceCents.NO_MIN || maxCents != PriceCents.NO_MAX;
+        long[] bounds = ProductFacets.PRICE_BUCKET_BOUNDS;
+        long[] bucketCounts = new long[bounds.length + 1];
+        Map<Long, long[]> categoryCounts = new HashMap<>();
+
+        if (term == null && !filterPrice) {
+            // unfiltered category counts come straight from the per-category index
+            for (Map.Entry<Long, int[]> entry : current.byCategory.entrySet()) {
+                categoryCounts.put(entry.getKey(), new long[] {entry.getValue().length});
+            }
+        }
+        boolean countCategories = categoryCounts.isEmpty();
+        for (int row = 0; row < current.size; row++) {
+            if (term != null && !containsIgnoreCase(current.names[row], term)
+                    && !containsIgnoreCase(current.codes[row], term)) {
+                continue;
+            }
+            long price = current.prices[row];
+            long rowCategory = current.categoryIds[row];
+            if (countCategories && (!filterPrice || (price >= minCents && price <= maxCents))) {
+                categoryCounts.computeIfAbsent(rowCategory, k -> new long[1])[0]++;
+            }
+            if (categoryId == null || rowCategory == categoryId) {
+                bucketCounts[PriceCents.bucketOf(price, bounds)]++;
+            }
+        }
+
+        List<ProductFacets.CategoryFacet> categoryFacets = new ArrayList<>();
+        for (Category category : current.categoriesByName) {
+            long[] count = categoryCounts.get(category.getId());
+            if (count != null && count[0] > 0) {
+                categoryFacets.add(new ProductFacets.CategoryFacet(category.getId(), category.getName(), count[0]));
+            }
+        }
+        return Optional.of(new ProductFacets(categoryFacets, ProductFacets.priceFacets(bucketCounts)));
+    }
+
+    // Category reads
+
+    /**
+     * Find a category by ID
+     */
+    public Optional<Optional<Category>> findCategory(Long id) {
+        Columns current = columns;
+        if (current == null || id == null) {
+            return Optional.empty();
+        }
+        Category category = current.categories.get(id);
+        return Optional.of(category == null ? Optional.empty() : Optional.of(copyOf(category)));
+    }
+
+    /**
+     * All categories ordered by name
+     */
+    public Optional<List<Category>> findAllCategories() {
+        Columns current = columns;
+        if (current == null) {
+            return Optional.empty();
+        }
+        List<Category> result = new ArrayList<>(current.categoriesByName.length);
+        for (Category category : current.categoriesByName) {
+            result.add(copyOf(category));
+        }
+        return Optional.of(result);
+    }
+
+    /**
+     * Page of categories, optionally filtered by a name search term
+     */
+    public Optional<Page<Category>> findCategories(String searchTerm, Pageable pageable) {
+        Columns current = columns;
+        if (current == null) {
+            return Optional.empty();
+        }
+        Comparator<Category> comparator = categoryComparator(pageable.getSort());
+        if (comparator == null) {
+            return Optional.empty();
+        }
+        String term = searchTerm == null || searchTerm.isEmpty() ? null : searchTerm;
+
+        List<Category> matches = new ArrayList<>();
+        for (Category category : current.categoriesByName) {
+            if (term == null || containsIgnoreCase(category.getName(), term)) {
+                matches.add(category);
+            }
+        }
+        matches.sort(comparator);
+
+        int from = pageable.isPaged() ? (int) Math.min(pageable.getOffset(), matches.size()) : 0;
+        int to = pageable.isPaged() ? Math.min(from + pageable.getPageSize(), matches.size()) : matches.size();
+        List<Category> content = new ArrayList<>(to - from);
+        for (Category category : matches.subList(from, to)) {
+            content.add(copyOf(category));
+        }
+        return Optional.of(new PageImpl<>(content, pageable, matches.size()));
+    }
+
+    // Deltas
+
+    /**
+     * Record a saved product; applied once the surrounding transaction commits
+     */
+    public void productSaved(Product product) {
+        long id = product.getId();
+        String code = product.getCode();
+        String name = product.getName();
+        long price = PriceCents.toCents(product.getPrice());
+        long categoryId = product.getCategory().getId();
+        AfterCommit.run(() -> update(current -> current.withProduct(id, code, name, price, categoryId)));
+    }
+
+    /**
+     * Record a deleted product; applied once the surrounding transaction commits
+     */
+    public void productDeleted(Long id) {
+        AfterCommit.run(() -> update(current -> current.withoutProduct(id)));
+    }
+
+    /**
+     * Record a saved category; applied once the surrounding transaction commits
+     */
+    public void categorySaved(Category category) {
+        Category copy = copyOf(category);
+        AfterCommit.run(() -> update(current -> current.withCategory(copy)));
+    }
+
+    /**
+     * Record a deleted category; applied once the surrounding transaction commits
+     */
+    public void categoryDeleted(Long id) {
+        AfterCommit.run(() -> update(current -> current.withoutCategory(id)));
+    }
+
+    private void update(UnaryOperator<Columns> delta) {
+        synchronized (writeLock) {
+            if (columns == null) {
+                pending.add(delta);
+            } else {
+                columns = delta.apply(columns);
+            }
+        }
+    }
+
+    // Helpers
+
+    private static final int[] EMPTY_ROWS = new int[0];
+
+    private static Category copyOf(Category category) {
+        Category copy = new Category(category.getName(), category.getDescription());
+        copy.setId(category.getId());
+        return copy;
+    }
+
+    private static boolean containsIgnoreCase(String value, String term) {
+        int max = value.length() - term.length();
+        for (int i = 0; i <= max; i++) {
+            if (value.regionMatches(true, i, term, 0, term.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Comparator<Category> categoryComparator(Sort sort) {
+        Comparator<Category> comparator = null;
+        for (Sort.Order order : sort) {
+            if (order.isIgnoreCase()) {
+                return null;
+            }
+            Comparator<Category> next;
+            switch (order.getProperty()) {
+                case "id" -> next = Comparator.comparing(Category::getId);
+                case "name" -> next = Comparator.comparing(Category::getName);
+                case "description" -> next = Comparator.comparing(Category::getDescription,
+                        Comparator.nullsFirst(Comparator.naturalOrder()));
+                default -> {
+                    return null;
+                }
+            }
+            if (order.isDescending()) {
+                next = next.reversed();
+            }
+            comparator = comparator == null ? next : comparator.thenComparing(next);
+        }
+        return comparator == null ? Comparator.comparing(Category::getId) : comparator;
+    }
+
+    /**
+     * Single-key product ordering supported by the snapshot indexes
+     */
+    private static final class ProductOrder {
+        static final int ID = 0;
+        static final int NAME = 1;
+        static final int CODE = 2;
+        static final int PRICE = 3;
+        static final int CATEGORY_NAME = 4;
+
+        final int key;
+        final boolean descending;
+
+        private ProductOrder(int key, boolean descending) {
+            this.key = key;
+            this.descending = descending;
+        }
+
+        static ProductOrder of(Sort sort) {
+            if (sort.isUnsorted()) {
+                return new ProductOrder(ID, false);
+            }
+            List<Sort.Order> orders = sort.toList();
+            if (orders.size() != 1 || orders.get(0).isIgnoreCase()) {
+                return null;
+            }
+            Sort.Order order = orders.get(0);
+            int key;
+            switch (order.getProperty()) {
+                case "id" -> key = ID;
+                case "name" -> key = NAME;
+                case "code" -> key = CODE;
+                case "price" -> key = PRICE;
+                case "category.name" -> key = CATEGORY_NAME;
+                default -> {
+                    return null;
+                }
+            }
+            return new ProductOrder(key, order.isDescending());
+        }
+    }
+
+    /**
+     * Immutable columnar state; writers derive a new instance and publish it.
+     * Rows are stored in ID order, and every index orders rows by its key with
+     * the row number (so the ID) as tie-breaker.
+     */
+    private static final class Columns {
+        final int size;
+        final long[] ids;
+        final String[] codes;
+        final String[] names;
+        final long[] prices;
+        final long[] categoryIds;
+        final int[] byName;
+        final int[] byCode;
+        final int[] byPrice;
+        final int[] byCategoryName;
+        final Map<Long, int[]> byCategory;
+        final Map<Long, Category> categories;
+        final Category[] categoriesByName;
+
+        private Columns(int size, long[] ids, String[] codes, String[] names, long[] prices, long[] categoryIds,
+                        int[] byName, int[] byCode, int[] byPrice, int[] byCategoryName, Map<Long, int[]> byCategory,
+                        Map<Long, Category> categories, Category[] categoriesByName) {
+            this.size = size;
+            this.ids = ids;
+            this.codes = codes;
+            this.names = names;
+            this.prices = prices;
+            this.categoryIds = categoryIds;
+            this.byName = byName;
+            this.byCode = byCode;
+            this.byPrice = byPrice;
+            this.byCategoryName = byCategoryName;
+            this.byCategory = byCategory;
+            this.categories = categories;
+            this.categoriesByName = categoriesByName;
+        }
+
+        /**
+         * Columns for rows given in ID order, with every index sorted from scratch
+         */
+        static Columns build(int size, long[] ids, String[] codes, String[] names, long[] prices, long[] categoryIds,
+                             Map<Long, Category> categories) {
+            Map<Long, Category> categoryMap = Collections.unmodifiableMap(categories);
+            int[] byName = IndexSort.sorted(size, nameOrder(names));
+            int[] byCode = IndexSort.sorted(size, codeOrder(codes));
+            int[] byPrice = identity(size);
+            PriceCents.sortRows(byPrice, 0, size, prices);
+            int[] byCategoryName = IndexSort.sorted(size, categoryNameOrder(categoryIds, categoryMap));
+
+            Map<Long, int[]> grouped = new HashMap<>();
+            Map<Long, Integer> counts = new HashMap<>();
+            for (int i = 0; i < size; i++) {
+                counts.merge(categoryIds[i], 1, Integer::sum);
+            }
+            Map<Long, Integer> fill = new HashMap<>();
+            for (int row : byName) {
+                long categoryId = categoryIds[row];
+                int[] rows = grouped.computeIfAbsent(categoryId, k -> new int[counts.get(k)]);
+                int position = fill.merge(categoryId, 1, Integer::sum) - 1;
+                rows[position] = row;
+            }
+            return new Columns(size, ids, codes, names, prices, categoryIds, byName, byCode, byPrice, byCategoryName,
+                    grouped, categoryMap, sortedByName(categoryMap));
+        }
+
+        int[] index(int key) {
+            return switch (key) {
+                case ProductOrder.NAME -> byName;
+                case ProductOrder.CODE -> byCode;
+                case ProductOrder.PRICE -> byPrice;
+                case ProductOrder.CATEGORY_NAME -> byCategoryName;
+                default -> null;
+            };
+        }
+
+        Product product(int row) {
+            Category category = categories.get(categoryIds[row]);
+            Product product = new Product(codes[row], names[row], PriceCents.fromCents(prices[row]),
+                    category == null ? null : copyOf(category));
+            product.setId(ids[row]);
+            return product;
+        }
+
+        Columns withProduct(long id, String code, String name, long price, long categoryId) {
+            int row = Arrays.binarySearch(ids, 0, size, id);
+            if (row >= 0) {
+                // an update takes the row out and puts it back at the same row number
+                return withoutRow(row).withRow(row, id, code, name, price, categoryId);
+            }
+            return withRow(-row - 1, id, code, name, price, categoryId);
+        }
+
+        Columns withoutProduct(long id) {
+            int row = Arrays.binarySearch(ids, 0, size, id);
+            return row < 0 ? this : withoutRow(row);
+        }
+
+        Columns withCategory(Category category) {
+            Map<Long, Category> newCategories = new HashMap<>(categories);
+            newCategories.put(category.getId(), category);
+            return withCategories(newCategories, category.getId());
+        }
+
+        Columns withoutCategory(long id) {
+            if (!categories.containsKey(id)) {
+                return this;
+            }
+            Map<Long, Category> newCategories = new HashMap<>(categories);
+            newCategories.remove(id);
+            return withCategories(newCategories, id);
+        }
+
+        /**
+         * Shallow estimate: primitive columns, indexes and string payloads
+         * (compressed oops, Latin-1 strings)
+         */
+        long estimatedBytes() {
+            long bytes = (long) size * (8 + 8 + 8)       // ids, prices, category ids
+                    + (long) size * 4 * 5                 // four sort indexes + per-category index
+                    + (long) size * 4 * 2;                // code and name references
+            for (int i = 0; i < size; i++) {
+                bytes += 40L + codes[i].length() + 40L + names[i].length();
+            }
+            return bytes;
+        }
+
+        /**
+         * Insert a row at row number {@code at}; rows from {@code at} on move up by one
+         */
+        private Columns withRow(int at, long id, String code, String name, long price, long categoryId) {
+            long[] newIds = insert(ids, size, at, id);
+            String[] newCodes = insert(codes, size, at, code);
+            String[] newNames = insert(names, size, at, name);
+            long[] newPrices = insert(prices, size, at, price);
+            long[] newCategoryIds = insert(categoryIds, size, at, categoryId);
+
+            IndexSort.RowComparator nameOrder = nameOrder(newNames);
+            Map<Long, int[]> newByCategory = new HashMap<>(byCategory.size() + 1);
+            for (Map.Entry<Long, int[]> entry : byCategory.entrySet()) {
+                newByCategory.put(entry.getKey(), entry.getKey() == categoryId
+                        ? insertRow(entry.getValue(), at, nameOrder)
+                        : shiftUp(entry.getValue(), at));
+            }
+            newByCategory.putIfAbsent(categoryId, new int[] {at});
+
+            return new Columns(size + 1, newIds, newCodes, newNames, newPrices, newCategoryIds,
+                    insertRow(byName, at, nameOrder),
+                    insertRow(byCode, at, codeOrder(newCodes)),
+                    insertRow(byPrice, at, priceOrder(newPrices)),
+                    insertRow(byCategoryName, at, categoryNameOrder(newCategoryIds, categories)),
+                    newByCategory, categories, categoriesByName);
+        }
+
+        /**
+         * Remove the row at row number {@code row}; rows after it move down by one
+         */
+        private Columns withoutRow(int row) {
+            long categoryId = categoryIds[row];
+            Map<Long, int[]> newByCategory = new HashMap<>(byCategory.size());
+            for (Map.Entry<Long, int[]> entry : byCategory.entrySet()) {
+                int[] rows = removeRow(entry.getValue(), row, entry.getKey() == categoryId);
+                if (rows.length > 0) {
+                    newByCategory.put(entry.getKey(), rows);
+                }
+            }
+            return new Columns(size - 1, remove(ids, size, row), remove(codes, size, row),
+                    remove(names, size, row), remove(prices, size, row), remove(categoryIds, size, row),
+                    removeRow(byName, row, true), removeRow(byCode, row, true),
+                    removeRow(byPrice, row, true), removeRow(byCategoryName, row, true),
+                    newByCategory, categories, categoriesByName);
+        }
+
+        /**
+         * Columns under a changed category map. Only the category-name index can
+         * change order, and only the changed category's rows move in it.
+         */
+        private Columns withCategories(Map<Long, Category> changed, long categoryId) {
+            Map<Long, Category> newCategories = Collections.unmodifiableMap(changed);
+            int[] newByCategoryName = byCategoryName;
+            if (!categoryName(categories, categoryId).equals(categoryName(newCategories, categoryId))) {
+                newByCategoryName = moveCategory(byCategoryName, categoryIds, categoryId,
+                        categoryNameOrder(categoryIds, newCategories));
+            }
+            return new Columns(size, ids, codes, names, prices, categoryIds, byName, byCode, byPrice,
+                    newByCategoryName, byCategory, newCategories, sortedByName(newCategories));
+        }
+
+        /**
+         * Index with {@code at} added in order; the existing rows from {@code at}
+         * on are renumbered up by one before comparing
+         */
+        private static int[] insertRow(int[] index, int at, IndexSort.RowComparator order) {
+            int lo = 0;
+            int hi = index.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                int row = index[mid] >= at ? index[mid] + 1 : index[mid];
+                if (order.compare(row, at) < 0) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            int[] target = new int[index.length + 1];
+            for (int i = 0; i < lo; i++) {
+                target[i] = index[i] >= at ? index[i] + 1 : index[i];
+            }
+            target[lo] = at;
+            for (int i = lo; i < index.length; i++) {
+                target[i + 1] = index[i] >= at ? index[i] + 1 : index[i];
+            }
+            return target;
+        }
+
+        private static int[] shiftUp(int[] index, int at) {
+            int[] target = new int[index.length];
+            for (int i = 0; i < index.length; i++) {
+                target[i] = index[i] >= at ? index[i] + 1 : index[i];
+            }
+            return target;
+        }
+
+        /**
+         * Index without {@code row} (when it holds it); the rows after it are renumbered down by one
+         */
+        private static int[] removeRow(int[] index, int row, boolean holdsRow) {
+            int[] target = new int[holdsRow ? index.length - 1 : index.length];
+            int length = 0;
+            for (int current : index) {
+                if (current != row) {
+                    target[length++] = current > row ? current - 1 : current;
+                }
+            }
+            return target;
+        }
+
+        /**
+         * Take a category's rows out of a category-name index and merge them back in
+         * under the new order. Both runs are already sorted: the other rows keep their
+         * names, and the moved rows share one name, so they stay in row order.
+         */
+        private static int[] moveCategory(int[] index, long[] categoryIds, long categoryId, IndexSort.RowComparator order) {
+            int[] moved = new int[index.length];
+            int[] kept = new int[index.length];
+            int movedCount = 0;
+            int keptCount = 0;
+            for (int row : index) {
+                if (categoryIds[row] == categoryId) {
+                    moved[movedCount++] = row;
+                } else {
+                    kept[keptCount++] = row;
+                }
+            }
+            int[] target = new int[index.length];
+            int i = 0;
+            int j = 0;
+            for (int k = 0; k < target.length; k++) {
+                if (j >= movedCount || (i < keptCount && order.compare(kept[i], moved[j]) <= 0)) {
+                    target[k] = kept[i++];
+                } else {
+                    target[k] = moved[j++];
+                }
+            }
+            return target;
+        }
+
+        private static IndexSort.RowComparator nameOrder(String[] names) {
+            return (a, b) -> {
+                int byName = names[a].compareTo(names[b]);
+                return byName != 0 ? byName : Integer.compare(a, b);
+            };
+        }
+
+        private static IndexSort.RowComparator codeOrder(String[] codes) {
+            return (a, b) -> {
+                int byCode = codes[a].compareTo(codes[b]);
+                return byCode != 0 ? byCode : Integer.compare(a, b);
+            };
+        }
+
+        /** Same order as {@link PriceCents#sortRows} */
+        private static IndexSort.RowComparator priceOrder(long[] prices) {
+            return (a, b) -> {
+                int byPrice = Long.compare(prices[a], prices[b]);
+                return byPrice != 0 ? byPrice : Integer.compare(a, b);
+            };
+        }
+
+        private static IndexSort.RowComparator categoryNameOrder(long[] categoryIds, Map<Long, Category> categories) {
+            return (a, b) -> {
+                int byCategory = categoryName(categories, categoryIds[a]).compareTo(categoryName(categories, categoryIds[b]));
+                return byCategory != 0 ? byCategory : Integer.compare(a, b);
+            };
+        }
+
+        private static String categoryName(Map<Long, Category> categories, long categoryId) {
+            Category category = categories.get(categoryId);
+            return category == null ? "" : category.getName();
+        }
+
+        private static Category[] sortedByName(Map<Long, Category> categories) {
+            return categories.values().stream()
+                    .sorted(Comparator.comparing(Category::getName))
+                    .toArray(Category[]::new);
+        }
+
+        private static int[] identity(int size) {
+            int[] rows = new int[size];
+            for (int i = 0; i < size; i++) {
+                rows[i] = i;
+            }
+            return rows;
+        }
+
+        private static long[] insert(long[] source, int size, int at, long value) {
+            long[] target = new long[size + 1];
+            System.arraycopy(source, 0, target, 0, at);
+            target[at] = value;
+            System.arraycopy(source, at, target, at + 1, size - at);
+            return target;
+        }
+
+        private static String[] insert(String[] source, int size, int at, String value) {
+            String[] target = new String[size + 1];
+            System.arraycopy(source, 0, target, 0, at);
+            target[at] = value;
+            System.arraycopy(source, at, target, at + 1, size - at);
+            return target;
+        }
+
+        private static long[] remove(long[] source, int size, int at) {
+            long[] target = new long[size - 1];
+            System.arraycopy(source, 0, target, 0, at);
+            System.arraycopy(source, at + 1, target, at, size - at - 1);
+            return target;
+        }
+
+        private static String[] remove(String[] source, int size, int at) {
+            String[] target = new String[size - 1];
+            System.arraycopy(source, 0, target, 0, at);
+            System.arraycopy(source, at + 1, target, at, size - at - 1);
+            return target;
+        }
+    }
+
+    /**
+     * Stable merge sort of row indexes using a primitive comparator, so building
+     * an index never boxes row numbers
+     */
+    static final class IndexSort {
+
+        @FunctionalInterface
+        interface RowComparator {
+            int compare(int a, int b);
+        }
+
+        static int[] sorted(int size, RowComparator comparator) {
+            int[] rows = new int[size];
+            for (int i = 0; i < size; i++) {
+                rows[i] = i;
+            }
+            sort(rows, comparator);
+            return rows;
+        }
+
+        static void sort(int[] rows, RowComparator comparator) {
+            int[] buffer = new int[rows.length];
+            for (int width = 1; width < rows.length; width <<= 1) {
+                for (int lo = 0; lo < rows.length - width; lo += width << 1) {
+                    int mid = lo + width;
+                    int hi = Math.min(lo + (width << 1), rows.length);
+                    if (comparator.compare(rows[mid - 1], rows[mid]) <= 0) {
+                        continue;
+                    }
+                    System.arraycopy(rows, lo, buffer, lo, hi - lo);
+                    int i = lo;
+                    int j = mid;
+                    for (int k = lo; k < hi; k++) {
+                        if (i < mid && (j >= hi || comparator.compare(buffer[i], buffer[j]) <= 0)) {
+                            rows[k] = buffer[i++];
+                        } else {
+                            rows[k] = buffer[j++];
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
@@ -1,19 +1,24 @@
 package com.shoe.service;
 
+import com.shoe.datasource.ProductShards;
 import com.shoe.entity.Category;
+import com.shoe.entity.OutboxEvent;
 import com.shoe.entity.Product;
 import com.shoe.repository.CategoryRepository;
 import com.shoe.repository.ProductRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 @Service
 @Transactional
@@ -25,19 +30,55 @@ public class CategoryService {
     @Autowired
     private ProductRepository productRepository;
     
+    @Autowired
+    private OutboxService outboxService;
+    
+    @Autowired(required = false)
+    private CatalogSnapshot catalogSnapshot;
+    
+    @Autowired(required = false)
+    private ProductShards productShards;
+    
+    @Autowired
+    private ReadCoalescer readCoalescer;
+    
+    @Autowired
+    private ProductCounts productCounts;
+    
+    @Autowired
+    private RecentItems recentItems;
+    
     /**
      * Get all categories
      */
     @Transactional(readOnly = true)
     public List<Category> getAllCategories() {
+        if (catalogSnapshot != null) {
+            Optional<List<Category>> cached = catalogSnapshot.findAllCategories();
+            if (cached.isPresent()) {
+                return cached.get();
+            }
+        }
         return categoryRepository.findAllByOrderByNameAsc();
     }
     
+    /**
+     * Count all categories (maintained counter, see ProductCounts)
+     */
+    @Transactional(readOnly = true)
+    public long countCategories() {
+        return productCounts.categories(categoryRepository::count);
+    }
+    
     /**
      * Get all categories with pagination
      */
     @Transactional(readOnly = true)
     public Page<Category> getAllCategories(Pageable pageable) {
+        Optional<Page<Category>> cached = fromSnapshot(null, pageable);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
         return categoryRepository.findAll(pageable);
     }
     
@@ -47,7 +88,11 @@ public class CategoryService {
     @Transactional(readOnly = true)
     public Page<Category> searchCategories(String name, Pageable pageable) {
         if (name == null || name.trim().isEmpty()) {
-            return categoryRepository.findAll(pageable);
+            return getAllCategories(pageable);
+        }
+        Optional<Page<Category>> cached = fromSnapshot(name.trim(), pageable);
+        if (cached.isPresent()) {
+            return cached.get();
         }
         return categoryRepository.findByNameContainingIgnoreCase(name.trim(), pageable);
     }
@@ -57,6 +102,12 @@ public class CategoryService {
      */
     @Transactional(readOnly = true)
     public Optional<Category> getCategoryById(Long id) {
+        if (catalogSnapshot != null) {
+            Optional<Optional<Category>> cached = catalogSnapshot.findCategory(id);
+            if (cached.isPresent()) {
+                return cached.get();
+            }
+        }
         return categoryRepository.findById(id);
     }
     
@@ -77,7 +128,22 @@ public class CategoryService {
             }
         }
         
-        return categoryRepository.save(category);
+        boolean isNew = category.getId() == null;
+        List<String> changedFields = isNew ? List.of("name", "description") : changedFields(category);
+        // coalesced product reads carry the category name
+        readCoalescer.invalidate();
+        
+        Category saved = categoryRepository.save(category);
+        productCounts.categorySaved(isNew);
+        outboxService.categoryChanged(saved, isNew ? OutboxEvent.CREATED : OutboxEvent.UPDATED, changedFields);
+        if (catalogSnapshot != null) {
+            catalogSnapshot.categorySaved(saved);
+        }
+        recentItems.categorySaved(saved);
+        if (productShards != null) {
+            productShards.categorySaved(saved);
+        }
+        return saved;
     }
     
     /**
@@ -89,12 +155,22 @@ public class CategoryService {
         }
         
         // Check if category has products
-        long productCount = categoryRepository.countProductsByCategoryId(id);
+        long productCount = onCategoryShard(id, () -> categoryRepository.countProductsByCategoryId(id));
         if (productCount > 0) {
             throw new IllegalArgumentException("Cannot delete category with existing products. Please delete all products first.");
         }
         
         categoryRepository.deleteById(id);
+        readCoalescer.invalidate();
+        productCounts.categoryDeleted(id);
+        outboxService.deleted("Category", id);
+        if (catalogSnapshot != null) {
+            catalogSnapshot.categoryDeleted(id);
+        }
+        recentItems.categoryDeleted(id);
+        if (productShards != null) {
+            productShards.categoryDeleted(id);
+        }
     }
     
     /**
@@ -117,13 +193,9 @@ public class CategoryService {
      * Get paginated categories with default sorting
      */
     @Transactional(readOnly = true)
-    public Page<Category> getCategoriesWithPagination(int page, int size, String sortBy, String sortDir) {
-        Sort sort = sortDir.equalsIgnoreCase("desc") ? 
-                   Sort.by(sortBy).descending() : 
-                   Sort.by(sortBy).ascending();
-        
-        Pageable pageable = PageRequest.of(page, size, sort);
-        return categoryRepository.findAll(pageable);
+    public Page<Category> getCategoriesWithPagination(int page, int size, CategorySortKey sortBy, String sortDir) {
+        Pageable pageable = PageRequest.of(page, size, sortBy.sort(sortDir));
+        return getAllCategories(pageable);
     }
     
     /**
@@ -131,7 +203,14 @@ public class CategoryService {
      */
     @Transactional(readOnly = true)
     public Page<Product> getProductsByCategory(Long categoryId, Pageable pageable) {
-        return productRepository.findByCategoryId(categoryId, pageable);
+        if (catalogSnapshot != null) {
+            Optional<Page<Product>> cached = catalogSnapshot.findProducts(categoryId, null, false, pageable);
+            if (cached.isPresent()) {
+                return cached.get();
+            }
+        }
+        return new PageImpl<>(onCategoryShard(categoryId, () -> productRepository.findByCategoryId(categoryId, pageable)), pageable,
+                productCounts.inCategory(categoryId, () -> onCategoryShard(categoryId, () -> productRepository.countByCategoryId(categoryId))));
     }
     
     /**
@@ -140,8 +219,55 @@ public class CategoryService {
     @Transactional(readOnly = true)
     public Page<Product> getProductsByCategory(Long categoryId, String name, Pageable pageable) {
         if (name == null || name.trim().isEmpty()) {
-            return productRepository.findByCategoryId(categoryId, pageable);
+            return getProductsByCategory(categoryId, pageable);
+        }
+        if (catalogSnapshot != null) {
+            Optional<Page<Product>> cached = catalogSnapshot.findProducts(categoryId, name.trim(), false, pageable);
+            if (cached.isPresent()) {
+                return cached.get();
+            }
+        }
+        String term = name.trim();
+        return new PageImpl<>(onCategoryShard(categoryId, () -> productRepository.findByCategoryIdAndNameContainingIgnoreCase(categoryId, term, pageable)), pageable,
+                productCounts.search("category:" + categoryId + ":" + term.toLowerCase(),
+                        limit -> onCategoryShard(categoryId, () -> productRepository.countByCategoryIdAndName(categoryId, term, limit))));
+    }
+    
+    /**
+     * Run a read on the category's product shard when products are sharded
+     */
+    private <T> T onCategoryShard(Long categoryId, Supplier<T> query) {
+        if (productShards == null) {
+            return query.get();
+        }
+        return productShards.read(productShards.shardForCategory(categoryId), query);
+    }
+    
+    /**
+     * Fields of an existing category that the given state changes
+     */
+    private List<String> changedFields(Category category) {
+        Optional<Category> existing = categoryRepository.findById(category.getId());
+        if (!existing.isPresent()) {
+            return List.of("name", "description");
+        }
+        List<String> fields = new ArrayList<>();
+        if (!Objects.equals(existing.get().getName(), category.getName())) {
+            fields.add("name");
+        }
+        if (!Objects.equals(existing.get().getDescription(), category.getDescription())) {
+            fields.add("description");
+        }
+        return fields;
+    }
+    
+    /**
+     * Serve a category page from the in-memory catalog when it is enabled and loaded
+     */
+    private Optional<Page<Category>> fromSnapshot(String searchTerm, Pageable pageable) {
+        if (catalogSnapshot == null) {
+            return Optional.empty();
         }
-        return productRepository.findByCategoryIdAndNameContainingIgnoreCase(categoryId, name.trim(), pageable);
+        return catalogSnapshot.findCategories(searchTerm, pageable);
     }
 }
@@ -0,0 +1,58 @@
+package com.shoe.service;
+
+import org.springframework.data.domain.Sort;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Columns the category list may be sorted by. Each key is backed by an index
+ * (see {@code Category}) and owns its two {@link Sort} instances, so only a
+ * fixed set of ORDER BY variants ever reaches the query plan cache.
+ */
+public enum CategorySortKey {
+
+    ID("id"),
+    NAME("name"),
+    DESCRIPTION("description");
+
+    private static final Map<String, CategorySortKey> BY_PROPERTY = new HashMap<>();
+
+    static {
+        for (CategorySortKey key : values()) {
+            BY_PROPERTY.put(key.property, key);
+        }
+    }
+
+    private final String property;
+    private final Sort ascending;
+    private final Sort descending;
+
+    CategorySortKey(String property) {
+        this.property = property;
+        this.ascending = Sort.by(Sort.Direction.ASC, property);
+        this.descending = Sort.by(Sort.Direction.DESC, property);
+    }
+
+    /**
+     * Look up a key by its request value ("id", "name", "description")
+     */
+    public static CategorySortKey fromProperty(String property) {
+        CategorySortKey key = BY_PROPERTY.get(property);
+        if (key == null) {
+            throw new IllegalArgumentException("Unsupported category sort key");
+        }
+        return key;
+    }
+
+    /**
+     * Sort in the given direction; anything but "desc" is ascending
+     */
+    public Sort sort(String direction) {
+        return "desc".equalsIgnoreCase(direction) ? descending : ascending;
+    }
+
+    public String getProperty() {
+        return property;
+    }
+}
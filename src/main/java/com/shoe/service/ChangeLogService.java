@@ -0,0 +1,82 @@
+package com.shoe.service;
+
+import com.shoe.entity.ChangeLog;
+import com.shoe.entity.OutboxEvent;
+import com.shoe.repository.ChangeLogRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Append-only change log for products and categories.
+ *
+ * Changes are recorded as outbox events in the business transaction, so they
+ * are durable as soon as it commits. The log itself is built from the outbox
+ * by {@link OutboxRelay}: every batch it publishes is appended here, in
+ * batched inserts off the request thread and in the same transaction that
+ * marks the batch published, so each committed change is logged exactly once.
+ * Entries carry the publish sequence of their event, which the relay assigns
+ * in commit order, and the feed is followed by that sequence.
+ */
+@Service
+public class ChangeLogService {
+
+    @Autowired
+    private ChangeLogRepository changeLogRepository;
+
+    /**
+     * Append entries for a batch of events the relay is publishing in the current transaction
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void append(List<OutboxEvent> published) {
+        List<ChangeLog> entries = new ArrayList<>(published.size());
+        for (OutboxEvent event : published) {
+            entries.add(new ChangeLog(event.getAggregateType(), event.getAggregateId(), operation(event.getEventType()),
+                    event.getChangedFields(), event.getActor(), event.getCreatedAt(), event.getPublishSeq()));
+        }
+        changeLogRepository.saveAll(entries);
+    }
+
+    /**
+     * Find changes of an entity type (or all types when null) within a time range
+     */
+    @Transactional(readOnly = true)
+    public Page<ChangeLog> getChanges(String entityType, LocalDateTime from, LocalDateTime to, Pageable pageable) {
+        LocalDateTime start = from != null ? from : LocalDateTime.of(1970, 1, 1, 0, 0);
+        LocalDateTime end = to != null ? to : LocalDateTime.now().plusDays(1);
+        if (entityType == null || entityType.trim().isEmpty()) {
+            return changeLogRepository.findByCreatedAtBetweenOrderByCreatedAtAsc(start, end, pageable);
+        }
+        return changeLogRepository.findByEntityTypeAndCreatedAtBetweenOrderByCreatedAtAsc(entityType.trim(), start, end, pageable);
+    }
+
+    /**
+     * Changes published after the given publish sequence, for consumers following the log as a
+     * change feed. The relay assigns the sequence in commit order, so a consumer that resumes
+     * after the last sequence it saw misses nothing.
+     */
+    @Transactional(readOnly = true)
+    public List<ChangeLog> getChangesAfter(Long lastPublishSeq, int limit) {
+        return changeLogRepository.findByPublishSeqGreaterThanOrderByPublishSeqAsc(
+                lastPublishSeq != null ? lastPublishSeq : 0L, PageRequest.of(0, limit));
+    }
+
+    private static String operation(String eventType) {
+        switch (eventType) {
+            case OutboxEvent.CREATED:
+                return ChangeLog.CREATE;
+            case OutboxEvent.DELETED:
+                return ChangeLog.DELETE;
+            default:
+                return ChangeLog.UPDATE;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.shoe.service;
+
+import com.shoe.event.SseChangeEventSink;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Pushes the dashboard counters to open pages when they change, so the
+ * dashboard never needs a full reload to stay current. The counters are the
+ * ones maintained by {@link ProductCounts}; this runs on its own schedule,
+ * apart from the outbox relay, so it adds no query or failure to a batch.
+ */
+@Component
+public class DashboardCountersPublisher {
+    
+    @Autowired
+    private SseChangeEventSink sseChangeEventSink;
+    
+    @Autowired
+    private ProductService productService;
+    
+    @Autowired
+    private CategoryService categoryService;
+    
+    private Map<String, Long> lastPublished;
+    
+    /**
+     * Broadcast the counters if they differ from the last broadcast
+     */
+    @Scheduled(fixedDelayString = "${dashboard.counters.interval-ms:2000}")
+    public void publish() {
+        if (sseChangeEventSink.getSubscriberCount() == 0) {
+            lastPublished = null;
+            return;
+        }
+        Map<String, Long> counters = new LinkedHashMap<>();
+        counters.put("totalProducts", productService.countProducts());
+        counters.put("totalCategories", categoryService.countCategories());
+        if (!counters.equals(lastPublished)) {
+            sseChangeEventSink.broadcast("counters", counters);
+            lastPublished = counters;
+        }
+    }
+}
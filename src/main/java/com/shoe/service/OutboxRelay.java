@@ -0,0 +1,189 @@
+package com.shoe.service;
+
+import com.shoe.datasource.ProductShards;
+import com.shoe.entity.OutboxEvent;
+import com.shoe.event.ChangeEvent;
+import com.shoe.event.ChangeEventSink;
+import com.shoe.repository.OutboxEventRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Polls the outbox and publishes unpublished events in batches to every
+ * {@link ChangeEventSink}. Each event gets the next publish sequence, which
+ * consumers see as the event id. The change log entries for the batch are
+ * written in the same transaction; the batch is marked published only if all
+ * sinks accepted it, otherwise it is rolled back and retried on the next run.
+ *
+ * When products are sharded, product events are written to the outbox of the
+ * product's shard; each run first forwards those into shard 0's outbox, so
+ * every event is published from one place in one sequence.
+ */
+@Component
+public class OutboxRelay {
+    
+    private static final Logger logger = LoggerFactory.getLogger(OutboxRelay.class);
+    
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+    
+    @Autowired
+    private ChangeLogService changeLogService;
+    
+    @Autowired
+    private List<ChangeEventSink> sinks;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Autowired(required = false)
+    private ProductShards productShards;
+    
+    @Value("${outbox.relay.batch-size:200}")
+    private int batchSize;
+    
+    @Value("${outbox.retention-hours:24}")
+    private long retentionHours;
+    
+    /**
+     * Publish pending events until the outbox is drained or a batch fails
+     */
+    @Scheduled(fixedDelayString = "${outbox.relay.interval-ms:500}")
+    public void relay() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        if (productShards != null) {
+            boolean more;
+            do {
+                more = forwardBatch(transactionTemplate);
+            } while (more);
+        }
+        Integer published;
+        do {
+            published = transactionTemplate.execute(this::relayBatch);
+        } while (published != null && published == batchSize);
+    }
+    
+    /**
+     * Drop published events past the retention window
+     */
+    @Scheduled(fixedDelayString = "${outbox.cleanup.interval-ms:3600000}")
+    @Transactional
+    public void cleanup() {
+        int deleted = outboxEventRepository.deletePublishedBefore(LocalDateTime.now().minusHours(retentionHours));
+        if (deleted > 0) {
+            logger.debug("Removed {} published outbox events", deleted);
+        }
+    }
+    
+    /**
+     * Copy a batch of events from every product shard's outbox into shard 0's,
+     * in the order they were written, then delete them on the shards. A copy
+     * records where it came from under a unique index, so a batch whose delete
+     * did not happen (or a racing relay) is not copied twice. Returns whether
+     * any shard had a full batch.
+     */
+    private boolean forwardBatch(TransactionTemplate transactionTemplate) {
+        List<OutboxEvent> pending = new ArrayList<>();
+        Map<Integer, List<Long>> idsByShard = new LinkedHashMap<>();
+        boolean full = false;
+        for (int shard = 1; shard < productShards.getShardCount(); shard++) {
+            List<OutboxEvent> events = productShards.read(shard,
+                    () -> outboxEventRepository.findByPublishedAtIsNullOrderByCreatedAtAscIdAsc(PageRequest.of(0, batchSize)));
+            List<Long> ids = new ArrayList<>(events.size());
+            for (OutboxEvent event : events) {
+                event.setOriginShard(shard);
+                ids.add(event.getId());
+            }
+            if (!ids.isEmpty()) {
+                idsByShard.put(shard, ids);
+            }
+            pending.addAll(events);
+            full |= events.size() == batchSize;
+        }
+        if (pending.isEmpty()) {
+            return false;
+        }
+        // a product that moved has events on two shards; keep them in write order
+        pending.sort(Comparator.comparing(OutboxEvent::getCreatedAt));
+        
+        transactionTemplate.executeWithoutResult(status -> {
+            Set<String> forwarded = new HashSet<>();
+            for (Map.Entry<Integer, List<Long>> shard : idsByShard.entrySet()) {
+                for (Long id : outboxEventRepository.findForwardedIds(shard.getKey(), shard.getValue())) {
+                    forwarded.add(shard.getKey() + ":" + id);
+                }
+            }
+            List<OutboxEvent> copies = new ArrayList<>(pending.size());
+            for (OutboxEvent event : pending) {
+                if (forwarded.contains(event.getOriginShard() + ":" + event.getId())) {
+                    continue;
+                }
+                OutboxEvent copy = new OutboxEvent(event.getAggregateType(), event.getAggregateId(), event.getEventType(),
+                        event.getPayload(), event.getChangedFields(), event.getActor(), event.getCreatedAt());
+                copy.setOriginShard(event.getOriginShard());
+                copy.setOriginId(event.getId());
+                copies.add(copy);
+            }
+            outboxEventRepository.saveAll(copies);
+        });
+        for (Map.Entry<Integer, List<Long>> shard : idsByShard.entrySet()) {
+            productShards.write(shard.getKey(), () -> {
+                outboxEventRepository.deleteAllByIdInBatch(shard.getValue());
+                return null;
+            });
+        }
+        return full;
+    }
+    
+    private int relayBatch(TransactionStatus status) {
+        List<OutboxEvent> pending = outboxEventRepository.findByPublishedAtIsNullOrderByCreatedAtAscIdAsc(PageRequest.of(0, batchSize));
+        if (pending.isEmpty()) {
+            return 0;
+        }
+        
+        // number the batch in publish order; flushing first means a second relay
+        // racing for the same numbers fails on the unique indexes before it publishes
+        long publishSeq = outboxEventRepository.findMaxPublishSeq();
+        LocalDateTime now = LocalDateTime.now();
+        for (OutboxEvent event : pending) {
+            event.setPublishSeq(++publishSeq);
+            event.setPublishedAt(now);
+        }
+        changeLogService.append(pending);
+        outboxEventRepository.flush();
+        
+        List<ChangeEvent> events = new ArrayList<>(pending.size());
+        for (OutboxEvent event : pending) {
+            events.add(ChangeEvent.from(event));
+        }
+        
+        try {
+            for (ChangeEventSink sink : sinks) {
+                sink.publish(events);
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Publishing {} outbox events failed, will retry", events.size(), e);
+            status.setRollbackOnly();
+            return 0;
+        }
+        return pending.size();
+    }
+}
@@ -0,0 +1,118 @@
+package com.shoe.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shoe.entity.Category;
+import com.shoe.entity.OutboxEvent;
+import com.shoe.entity.Product;
+import com.shoe.event.ChangeEvent;
+import com.shoe.repository.OutboxEventRepository;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Transactional outbox: change events are written in the same transaction as
+ * the change itself, so an event exists if and only if the change committed.
+ * {@link OutboxRelay} publishes them afterwards and builds the change log
+ * from them, so events also carry the changed fields and the actor.
+ */
+@Service
+public class OutboxService {
+    
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    /**
+     * Append a product event to the outbox of the current transaction
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void productChanged(Product product, String eventType, List<String> changedFields) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("id", product.getId());
+        payload.put("code", product.getCode());
+        payload.put("name", product.getName());
+        payload.put("price", product.getPrice());
+        if (product.getCategory() != null) {
+            payload.put("categoryId", product.getCategory().getId());
+            payload.put("categoryName", product.getCategory().getName());
+        }
+        append("Product", product.getId(), eventType, payload, changedFields);
+    }
+    
+    /**
+     * Append a category event to the outbox of the current transaction
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void categoryChanged(Category category, String eventType, List<String> changedFields) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("id", category.getId());
+        payload.put("name", category.getName());
+        payload.put("description", category.getDescription());
+        append("Category", category.getId(), eventType, payload, changedFields);
+    }
+    
+    /**
+     * Append a delete event to the outbox of the current transaction
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void deleted(String aggregateType, Long id) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("id", id);
+        append(aggregateType, id, OutboxEvent.DELETED, payload, null);
+    }
+    
+    /**
+     * Published events after the given event ID (publish sequence), for
+     * consumers catching up after a reconnect
+     */
+    @Transactional(readOnly = true)
+    public List<ChangeEvent> getPublishedAfter(Long lastId, int limit) {
+        List<ChangeEvent> events = new ArrayList<>();
+        for (OutboxEvent event : outboxEventRepository.findByPublishSeqGreaterThanOrderByPublishSeqAsc(
+                lastId, PageRequest.of(0, limit))) {
+            events.add(ChangeEvent.from(event));
+        }
+        return events;
+    }
+    
+    private void append(String aggregateType, Long id, String eventType, Map<String, Object> payload,
+                        List<String> changedFields) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize outbox payload for " + aggregateType + " " + id, e);
+        }
+        outboxEventRepository.save(new OutboxEvent(aggregateType, id, eventType, json,
+                changedFields == null || changedFields.isEmpty() ? null : String.join(",", changedFields),
+                currentActor(), LocalDateTime.now()));
+    }
+    
+    private static String currentActor() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes instanceof ServletRequestAttributes servletAttributes) {
+            HttpServletRequest request = servletAttributes.getRequest();
+            if (request.getRemoteUser() != null) {
+                return request.getRemoteUser();
+            }
+            return request.getRemoteAddr();
+        }
+        return "system";
+    }
+}
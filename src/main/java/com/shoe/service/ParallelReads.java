@@ -0,0 +1,177 @@
+package com.shoe.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Runs the independent reads of a composite page (dashboard counts, recent
+ * items, a category and its products) at the same time, so the page waits for
+ * the slowest query rather than for all of them in turn.
+ *
+ * Each read runs on a bounded pool in a read-only transaction of its own; when
+ * the pool and its queue are full the read runs on the request thread instead.
+ * All reads of a batch share one deadline. A read that misses it is cancelled,
+ * and its transaction times out after {@code page.reads.timeout-ms}. A part
+ * the page cannot do without is taken with {@link Part#get()}, which rethrows
+ * its failure; an optional one with {@link Part#orElse(Object)}, which falls
+ * back and lists the part as unavailable.
+ */
+@Component
+public class ParallelReads {
+
+    private static final Logger logger = LoggerFactory.getLogger(ParallelReads.class);
+
+    private final ThreadPoolExecutor executor;
+
+    private final TransactionTemplate readTemplate;
+
+    private final long timeoutMs;
+
+    private final LongAdder reads = new LongAdder();
+
+    private final LongAdder failed = new LongAdder();
+
+    private final LongAdder timedOut = new LongAdder();
+
+    public ParallelReads(PlatformTransactionManager transactionManager,
+                         @Value("${page.reads.threads:8}") int threads,
+                         @Value("${page.reads.queue-capacity:100}") int queueCapacity,
+                         @Value("${page.reads.timeout-ms:3000}") long timeoutMs) {
+        this.readTemplate = new TransactionTemplate(transactionManager);
+        readTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        readTemplate.setReadOnly(true);
+        // becomes a statement timeout, so a read the page gave up on stops and frees its connection
+        readTemplate.setTimeout((int) Math.max(1, TimeUnit.MILLISECONDS.toSeconds(timeoutMs + 999)));
+        this.timeoutMs = timeoutMs;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "page-read-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Start a batch of reads for one page
+     */
+    public Batch batch() {
+        return new Batch(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs));
+    }
+
+    /**
+     * Reads started, failed and timed out, and the pool's current load
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("reads", reads.sum());
+        stats.put("failed", failed.sum());
+        stats.put("timedOut", timedOut.sum());
+        stats.put("active", executor.getActiveCount());
+        stats.put("queued", executor.getQueue().size());
+        return stats;
+    }
+
+    public final class Batch {
+
+        private final long deadline;
+
+        private final List<String> unavailable = Collections.synchronizedList(new ArrayList<>());
+
+        private Batch(long deadline) {
+            this.deadline = deadline;
+        }
+
+        /**
+         * Start a read; name identifies it in the unavailable list
+         */
+        public <T> Part<T> submit(String name, Supplier<T> read) {
+            reads.increment();
+            return new Part<>(this, name, executor.submit(() -> readTemplate.execute(status -> read.get())));
+        }
+
+        /**
+         * Names of the optional parts that fell back
+         */
+        public List<String> getUnavailable() {
+            return new ArrayList<>(unavailable);
+        }
+    }
+
+    public final class Part<T> {
+
+        private final Batch batch;
+
+        private final String name;
+
+        private final Future<T> future;
+
+        private Part(Batch batch, String name, Future<T> future) {
+            this.batch = batch;
+            this.name = name;
+            this.future = future;
+        }
+
+        /**
+         * Wait for the result until the batch deadline; failures are rethrown
+         */
+        public T get() {
+            try {
+                return future.get(Math.max(0, batch.deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                // interrupts the pool thread; the transaction timeout ends the statement itself
+                future.cancel(true);
+                timedOut.increment();
+                throw new IllegalStateException("Page read '" + name + "' timed out", e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for page read '" + name + "'", e);
+            } catch (ExecutionException e) {
+                failed.increment();
+                if (e.getCause() instanceof RuntimeException runtime) {
+                    throw runtime;
+                }
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+
+        /**
+         * The result, or the fallback when the read failed or missed the deadline
+         */
+        public T orElse(T fallback) {
+            try {
+                return get();
+            } catch (RuntimeException e) {
+                logger.warn("Page read '{}' unavailable: {}", name, e.getMessage());
+                batch.unavailable.add(name);
+                return fallback;
+            }
+        }
+    }
+}
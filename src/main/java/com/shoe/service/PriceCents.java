@@ -0,0 +1,178 @@
+package com.shoe.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Prices as scaled {@code long} cents.
+ *
+ * {@code Product.price} is a DECIMAL(12, 2), so every stored price fits in a
+ * {@code long} number of cents. In-memory listing paths compare, sort and
+ * bucket these primitives instead of {@link BigDecimal} objects, and convert
+ * back with {@link #fromCents(long)} only when a product is handed out.
+ */
+public final class PriceCents {
+
+    /** Lower bound meaning "no minimum" */
+    public static final long NO_MIN = Long.MIN_VALUE;
+
+    /** Upper bound meaning "no maximum" */
+    public static final long NO_MAX = Long.MAX_VALUE;
+
+    private PriceCents() {}
+
+    /**
+     * Exact conversion of a stored price to cents
+     */
+    public static long toCents(BigDecimal price) {
+        return price.setScale(2, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Exact conversion of cents back to a price with scale 2
+     */
+    public static BigDecimal fromCents(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    /**
+     * Inclusive lower bound in cents; fractions of a cent round up
+     */
+    public static long minBound(BigDecimal minPrice) {
+        return minPrice == null ? NO_MIN : boundCents(minPrice, RoundingMode.CEILING);
+    }
+
+    /**
+     * Inclusive upper bound in cents; fractions of a cent round down
+     */
+    public static long maxBound(BigDecimal maxPrice) {
+        return maxPrice == null ? NO_MAX : boundCents(maxPrice, RoundingMode.FLOOR);
+    }
+
+    /**
+     * Sort row indexes in place by price, ties broken by row number.
+     * Quicksort with an insertion-sort cutoff; no allocation.
+     */
+    public static void sortRows(int[] rows, int from, int to, long[] prices) {
+        while (to - from > 16) {
+            int mid = (from + to) >>> 1;
+            int pivot = medianOfThree(rows[from], rows[mid], rows[to - 1], prices);
+            int i = from;
+            int j = to - 1;
+            while (i <= j) {
+                while (compare(rows[i], pivot, prices) < 0) {
+                    i++;
+                }
+                while (compare(rows[j], pivot, prices) > 0) {
+                    j--;
+                }
+                if (i <= j) {
+                    int tmp = rows[i];
+                    rows[i++] = rows[j];
+                    rows[j--] = tmp;
+                }
+            }
+            // recurse into the smaller half, loop on the larger one
+            if (j - from < to - i) {
+                sortRows(rows, from, j + 1, prices);
+                from = i;
+            } else {
+                sortRows(rows, i, to, prices);
+                to = j + 1;
+            }
+        }
+        for (int i = from + 1; i < to; i++) {
+            int row = rows[i];
+            int j = i - 1;
+            while (j >= from && compare(rows[j], row, prices) > 0) {
+                rows[j + 1] = rows[j];
+                j--;
+            }
+            rows[j + 1] = row;
+        }
+    }
+
+    /**
+     * First position in a price-sorted row index whose price is at least {@code cents}
+     */
+    public static int lowerBound(int[] rows, int length, long[] prices, long cents) {
+        int lo = 0;
+        int hi = length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (prices[rows[mid]] < cents) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * First position in a price-sorted row index whose price is above {@code cents}
+     */
+    public static int upperBound(int[] rows, int length, long[] prices, long cents) {
+        int lo = 0;
+        int hi = length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (prices[rows[mid]] <= cents) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * Bucket index of a price for the given exclusive upper bounds
+     */
+    public static int bucketOf(long cents, long[] upperBounds) {
+        int lo = 0;
+        int hi = upperBounds.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (cents < upperBounds[mid]) {
+                hi = mid;
+            } else {
+                lo = mid + 1;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * A user-supplied bound beyond the range of a long saturates to NO_MIN or
+     * NO_MAX instead of failing: past every stored price it still matches all
+     * prices or none. The size is checked before scaling, so an exponent such
+     * as 1E+999999999 is never expanded.
+     */
+    private static long boundCents(BigDecimal price, RoundingMode rounding) {
+        if (price.precision() - price.scale() > 16) {
+            return price.signum() > 0 ? NO_MAX : NO_MIN;
+        }
+        return price.setScale(2, rounding).unscaledValue().longValueExact();
+    }
+
+    private static int compare(int a, int b, long[] prices) {
+        int byPrice = Long.compare(prices[a], prices[b]);
+        return byPrice != 0 ? byPrice : Integer.compare(a, b);
+    }
+
+    private static int medianOfThree(int a, int b, int c, long[] prices) {
+        if (compare(a, b, prices) > 0) {
+            int tmp = a;
+            a = b;
+            b = tmp;
+        }
+        if (compare(b, c, prices) > 0) {
+            b = c;
+            if (compare(a, b, prices) > 0) {
+                b = a;
+            }
+        }
+        return b;
+    }
+}
@@ -0,0 +1,263 @@
+package com.shoe.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.text.NumberFormat;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+/**
+ * Total counts for the paged product listings, so paging does not run a
+ * {@code COUNT(*)} per click.
+ *
+ * The overall and per-category totals, and the number of categories, are counters: loaded once from the
+ * database, then adjusted by every committed save and delete, and reloaded
+ * after {@code counts.exact-ttl-ms} to correct any drift. Search and filter
+ * totals are cached for {@code counts.search-ttl-ms} and counted only up to
+ * {@code counts.search-cap}; a larger result is reported as cap + 1 and
+ * shown as "10,000+". Facet counts of the product list are cached the same
+ * way, and dropped by every committed product or category change.
+ */
+@Component
+public class ProductCounts {
+
+    private static final String TOTAL = "total";
+
+    private static final String CATEGORIES = "categories";
+
+    private final ConcurrentHashMap<String, Counter> counters = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<String, Cached> searches = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<String, CachedFacets> facets = new ConcurrentHashMap<>();
+
+    /** Bumped whenever the facets are dropped; a load that overlaps it is not kept */
+    private final AtomicLong facetChanges = new AtomicLong();
+
+    /** Bumped before every counter adjustment; a load that overlaps one is not kept */
+    private final AtomicLong adjustments = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder loads = new LongAdder();
+
+    private final long exactTtlNanos;
+
+    private final long searchTtlNanos;
+
+    private final int searchCap;
+
+    private final int maxSearches;
+
+    public ProductCounts(@Value("${counts.exact-ttl-ms:300000}") long exactTtlMs,
+                         @Value("${counts.search-ttl-ms:5000}") long searchTtlMs,
+                         @Value("${counts.search-cap:10000}") int searchCap,
+                         @Value("${counts.max-searches:1000}") int maxSearches) {
+        this.exactTtlNanos = exactTtlMs * 1_000_000L;
+        this.searchTtlNanos = searchTtlMs * 1_000_000L;
+        this.searchCap = searchCap;
+        this.maxSearches = maxSearches;
+    }
+
+    /**
+     * Number of products
+     */
+    public long total(Supplier<Long> count) {
+        return counter(TOTAL, count);
+    }
+
+    /**
+     * Number of products in a category
+     */
+    public long inCategory(Long categoryId, Supplier<Long> count) {
+        return counter("category:" + categoryId, count);
+    }
+
+    /**
+     * Number of categories
+     */
+    public long categories(Supplier<Long> count) {
+        return counter(CATEGORIES, count);
+    }
+
+    /**
+     * Number of products matching a search, at most cap + 1; the count
+     * receives the limit to stop at
+     */
+    public long search(String key, IntFunction<Long> cappedCount) {
+        long now = System.nanoTime();
+        Cached cached = searches.get(key);
+        if (cached != null && now - cached.loadedAt < searchTtlNanos) {
+            hits.increment();
+            return cached.value;
+        }
+        loads.increment();
+        long value = Math.min(cappedCount.apply(searchCap + 1), searchCap + 1L);
+        if (searches.size() >= maxSearches) {
+            searches.values().removeIf(entry -> now - entry.loadedAt >= searchTtlNanos);
+            if (searches.size() >= maxSearches) {
+                searches.clear();
+            }
+        }
+        searches.put(key, new Cached(value, now));
+        return value;
+    }
+
+    /**
+     * Facet counts for the product list, loaded at most once per
+     * {@code counts.search-ttl-ms} and until the next change
+     */
+    public ProductFacets facets(String key, Supplier<ProductFacets> load) {
+        long now = System.nanoTime();
+        CachedFacets cached = facets.get(key);
+        if (cached != null && now - cached.loadedAt < searchTtlNanos) {
+            hits.increment();
+            return cached.value;
+        }
+        loads.increment();
+        long before = facetChanges.get();
+        ProductFacets value = load.get();
+        if (facets.size() >= maxSearches) {
+            facets.values().removeIf(entry -> now - entry.loadedAt >= searchTtlNanos);
+            if (facets.size() >= maxSearches) {
+                facets.clear();
+            }
+        }
+        if (facetChanges.get() == before) {
+            facets.put(key, new CachedFacets(value, now));
+        }
+        return value;
+    }
+
+    /**
+     * Whether a total came from a search that reached the cap
+     */
+    public boolean isCapped(long total) {
+        return total > searchCap;
+    }
+
+    /**
+     * Total as shown on the list pages: "10,000+" for a capped search
+     */
+    public String label(long total) {
+        NumberFormat format = NumberFormat.getIntegerInstance(Locale.US);
+        return isCapped(total) ? format.format(searchCap) + "+" : String.valueOf(total);
+    }
+
+    /**
+     * Record a committed product change: created (from is null), deleted
+     * (to is null), moved between categories or updated in place (from equals to)
+     */
+    public void productMoved(Long fromCategoryId, Long toCategoryId) {
+        // any product write can change a facet count (price buckets, search matches)
+        AfterCommit.run(this::dropFacets);
+        if (fromCategoryId != null && fromCategoryId.equals(toCategoryId)) {
+            return;
+        }
+        AfterCommit.run(() -> {
+            adjustments.incrementAndGet();
+            if (fromCategoryId == null) {
+                adjust(TOTAL, 1);
+            }
+            if (toCategoryId == null) {
+                adjust(TOTAL, -1);
+            }
+            if (fromCategoryId != null) {
+                adjust("category:" + fromCategoryId, -1);
+            }
+            if (toCategoryId != null) {
+                adjust("category:" + toCategoryId, 1);
+            }
+        });
+    }
+
+    /**
+     * Record a committed category save (its name appears in the facets)
+     */
+    public void categorySaved(boolean created) {
+        AfterCommit.run(() -> {
+            if (created) {
+                adjustments.incrementAndGet();
+                adjust(CATEGORIES, 1);
+            }
+            dropFacets();
+        });
+    }
+
+    /**
+     * Forget the counter of a deleted category
+     */
+    public void categoryDeleted(Long categoryId) {
+        AfterCommit.run(() -> {
+            adjustments.incrementAndGet();
+            counters.remove("category:" + categoryId);
+            adjust(CATEGORIES, -1);
+            dropFacets();
+        });
+    }
+
+    /**
+     * Counter and search cache sizes, cache hits and database loads
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("counters", counters.size());
+        stats.put("searches", searches.size());
+        stats.put("facets", facets.size());
+        stats.put("hits", hits.sum());
+        stats.put("loads", loads.sum());
+        stats.put("searchCap", searchCap);
+        return stats;
+    }
+
+    private long counter(String key, Supplier<Long> count) {
+        Counter counter = counters.get(key);
+        if (counter != null && System.nanoTime() - counter.loadedAt < exactTtlNanos) {
+            hits.increment();
+            return Math.max(0, counter.value.get());
+        }
+        loads.increment();
+        long before = adjustments.get();
+        long loadedAt = System.nanoTime();
+        long value = count.get();
+        if (adjustments.get() == before) {
+            counters.put(key, new Counter(value, loadedAt));
+        }
+        return value;
+    }
+
+    private void dropFacets() {
+        facetChanges.incrementAndGet();
+        facets.clear();
+    }
+
+    private void adjust(String key, long delta) {
+        Counter counter = counters.get(key);
+        if (counter != null) {
+            counter.value.addAndGet(delta);
+        }
+    }
+
+    private static final class Counter {
+        final AtomicLong value;
+        final long loadedAt;
+
+        Counter(long value, long loadedAt) {
+            this.value = new AtomicLong(value);
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    private record Cached(long value, long loadedAt) {
+    }
+
+    private record CachedFacets(ProductFacets value, long loadedAt) {
+    }
+}
@@ -0,0 +1,132 @@
+package com.shoe.service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Facet counts for the product list: one entry per category and one per
+ * price bucket, each counting the products that match the current search.
+ */
+public class ProductFacets {
+
+    /**
+     * Exclusive upper bounds of the price buckets, in cents. The last bucket is
+     * open-ended. {@code ProductRepository.countByPriceBucket} takes these as
+     * parameters and returns one column per bucket, so there are four bounds.
+     */
+    public static final long[] PRICE_BUCKET_BOUNDS = {5_000, 10_000, 25_000, 50_000};
+
+    private final List<CategoryFacet> categories;
+    private final List<PriceFacet> priceBuckets;
+
+    public ProductFacets(List<CategoryFacet> categories, List<PriceFacet> priceBuckets) {
+        this.categories = Collections.unmodifiableList(categories);
+        this.priceBuckets = Collections.unmodifiableList(priceBuckets);
+    }
+
+    /**
+     * The bucket bounds as prices, for binding into queries
+     */
+    public static BigDecimal[] priceBounds() {
+        BigDecimal[] bounds = new BigDecimal[PRICE_BUCKET_BOUNDS.length];
+        for (int i = 0; i < bounds.length; i++) {
+            bounds[i] = PriceCents.fromCents(PRICE_BUCKET_BOUNDS[i]);
+        }
+        return bounds;
+    }
+
+    /**
+     * Build the price facets from per-bucket counts
+     */
+    public static List<PriceFacet> priceFacets(long[] counts) {
+        List<PriceFacet> facets = new ArrayList<>(counts.length);
+        for (int i = 0; i < counts.length; i++) {
+            BigDecimal minPrice = i == 0 ? null : PriceCents.fromCents(PRICE_BUCKET_BOUNDS[i - 1]);
+            BigDecimal maxPrice = i < PRICE_BUCKET_BOUNDS.length ? PriceCents.fromCents(PRICE_BUCKET_BOUNDS[i] - 1) : null;
+            String label;
+            if (minPrice == null) {
+                label = "Under " + plain(PRICE_BUCKET_BOUNDS[i]);
+            } else if (maxPrice == null) {
+                label = plain(PRICE_BUCKET_BOUNDS[i - 1]) + " and above";
+            } else {
+                label = plain(PRICE_BUCKET_BOUNDS[i - 1]) + " - " + plain(PRICE_BUCKET_BOUNDS[i]);
+            }
+            facets.add(new PriceFacet(label, minPrice, maxPrice, counts[i]));
+        }
+        return facets;
+    }
+
+    private static String plain(long cents) {
+        return PriceCents.fromCents(cents).stripTrailingZeros().toPlainString();
+    }
+
+    public List<CategoryFacet> getCategories() {
+        return categories;
+    }
+
+    public List<PriceFacet> getPriceBuckets() {
+        return priceBuckets;
+    }
+
+    /**
+     * Product count for one category
+     */
+    public static class CategoryFacet {
+        private final Long id;
+        private final String name;
+        private final long count;
+
+        public CategoryFacet(Long id, String name, long count) {
+            this.id = id;
+            this.name = name;
+            this.count = count;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getCount() {
+            return count;
+        }
+    }
+
+    /**
+     * Product count for one price bucket; {@code maxPrice} is null for the open-ended bucket
+     */
+    public static class PriceFacet {
+        private final String label;
+        private final BigDecimal minPrice;
+        private final BigDecimal maxPrice;
+        private final long count;
+
+        public PriceFacet(String label, BigDecimal minPrice, BigDecimal maxPrice, long count) {
+            this.label = label;
+            this.minPrice = minPrice;
+            this.maxPrice = maxPrice;
+            this.count = count;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        public BigDecimal getMinPrice() {
+            return minPrice;
+        }
+
+        public BigDecimal getMaxPrice() {
+            return maxPrice;
+        }
+
+        public long getCount() {
+            return count;
+        }
+    }
+}
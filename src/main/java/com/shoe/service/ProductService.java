@@ -1,19 +1,38 @@
 package com.shoe.service;
 
+import com.shoe.datasource.ProductShards;
+import com.shoe.entity.OutboxEvent;
 import com.shoe.entity.Product;
 import com.shoe.entity.Category;
+import com.shoe.repository.ProductDetail;
 import com.shoe.repository.ProductRepository;
+import com.shoe.repository.ProductRow;
 import com.shoe.repository.CategoryRepository;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 @Service
 @Transactional
@@ -25,20 +44,71 @@ public class ProductService {
     @Autowired
     private CategoryRepository categoryRepository;
     
+    @Autowired
+    private OutboxService outboxService;
+    
+    @Autowired(required = false)
+    private CatalogSnapshot catalogSnapshot;
+    
+    @Autowired(required = false)
+    private ProductShards productShards;
+    
+    @Autowired
+    private ReadCoalescer readCoalescer;
+    
+    @Autowired
+    private ProductCounts productCounts;
+    
+    @Autowired
+    private RecentItems recentItems;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    private TransactionTemplate readOnlyTransaction;
+    
+    @PostConstruct
+    public void init() {
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        readOnlyTransaction.setReadOnly(true);
+    }
+    
     /**
      * Get all products
      */
     @Transactional(readOnly = true)
     public List<Product> getAllProducts() {
+        if (catalogSnapshot != null) {
+            Optional<List<Product>> cached = catalogSnapshot.findAllProducts();
+            if (cached.isPresent()) {
+                return cached.get();
+            }
+        }
+        if (productShards != null) {
+            return productShards.gatherList(productRepository::findAllWithCategory, Sort.by("name"));
+        }
         return productRepository.findAllWithCategory();
     }
     
+    /**
+     * Count all products (maintained counter, see ProductCounts)
+     */
+    @Transactional(readOnly = true)
+    public long countProducts() {
+        return productCounts.total(() -> countAcrossShards(productRepository::count));
+    }
+    
     /**
      * Get all products with pagination
      */
     @Transactional(readOnly = true)
     public Page<Product> getAllProducts(Pageable pageable) {
-        return productRepository.findAll(pageable);
+        Optional<Page<Product>> cached = fromSnapshot(null, null, false, pageable);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+        return new PageImpl<>(windowAcrossShards(productRepository::findAllBy, pageable), pageable, countProducts());
     }
     
     /**
@@ -47,9 +117,13 @@ public class ProductService {
     @Transactional(readOnly = true)
     public Page<Product> searchProducts(String name, Pageable pageable) {
         if (name == null || name.trim().isEmpty()) {
-            return productRepository.findAll(pageable);
+            return getAllProducts(pageable);
+        }
+        Optional<Page<Product>> cached = fromSnapshot(null, name.trim(), false, pageable);
+        if (cached.isPresent()) {
+            return cached.get();
         }
-        return productRepository.findByNameContainingIgnoreCase(name.trim(), pageable);
+        return acrossShards(page -> productRepository.findByNameContainingIgnoreCase(name.trim(), page), pageable);
     }
     
     /**
@@ -58,9 +132,138 @@ public class ProductService {
     @Transactional(readOnly = true)
     public Page<Product> searchProductsByNameOrCode(String searchTerm, Pageable pageable) {
         if (searchTerm == null || searchTerm.trim().isEmpty()) {
-            return productRepository.findAll(pageable);
+            return getAllProducts(pageable);
+        }
+        String term = searchTerm.trim();
+        Optional<Page<Product>> cached = fromSnapshot(null, term, true, pageable);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+        long total = productCounts.search("search:" + term.toLowerCase(),
+                limit -> countAcrossShards(() -> productRepository.countSearchProducts(term, limit)));
+        return new PageImpl<>(windowAcrossShards(page -> productRepository.searchProducts(term, page), pageable), pageable, total);
+    }
+    
+    /**
+     * Search products by name or code within a price range (either bound may be null)
+     */
+    @Transactional(readOnly = true)
+    public Page<Product> searchProductsInPriceRange(String searchTerm, BigDecimal minPrice, BigDecimal maxPrice, Pageable pageable) {
+        if (minPrice == null && maxPrice == null) {
+            return searchProductsByNameOrCode(searchTerm, pageable);
         }
-        return productRepository.searchProducts(searchTerm.trim(), pageable);
+        return filterProducts(null, searchTerm, minPrice, maxPrice, pageable);
+    }
+    
+    /**
+     * Filter products by category, name or code and price range (every filter may be null)
+     */
+    @Transactional(readOnly = true)
+    public Page<Product> filterProducts(Long categoryId, String searchTerm, BigDecimal minPrice, BigDecimal maxPrice, Pageable pageable) {
+        String term = searchTerm == null || searchTerm.trim().isEmpty() ? null : searchTerm.trim();
+        if (catalogSnapshot != null) {
+            Optional<Page<Product>> cached = catalogSnapshot.findProducts(categoryId, term, true,
+                    PriceCents.minBound(minPrice), PriceCents.maxBound(maxPrice), pageable);
+            if (cached.isPresent()) {
+                return cached.get();
+            }
+        }
+        if (categoryId != null) {
+            return new PageImpl<>(
+                    onCategoryShard(categoryId, () -> productRepository.filterProducts(categoryId, term, minPrice, maxPrice, pageable)),
+                    pageable, countFiltered(categoryId, term, minPrice, maxPrice));
+        }
+        return new PageImpl<>(windowAcrossShards(page -> productRepository.filterProducts(null, term, minPrice, maxPrice, page), pageable),
+                pageable, countFiltered(null, term, minPrice, maxPrice));
+    }
+    
+    /**
+     * Facet counts for the product list. Category counts ignore the selected
+     * category and price counts ignore the selected price range, so each facet
+     * shows what selecting one of its values would return. Served from the
+     * snapshot when it is loaded, otherwise cached until the next product or
+     * category change (see ProductCounts).
+     */
+    @Transactional(readOnly = true)
+    public ProductFacets getProductFacets(Long categoryId, String searchTerm, BigDecimal minPrice, BigDecimal maxPrice) {
+        String term = searchTerm == null || searchTerm.trim().isEmpty() ? null : searchTerm.trim();
+        if (catalogSnapshot != null) {
+            Optional<ProductFacets> cached = catalogSnapshot.facets(categoryId, term,
+                    PriceCents.minBound(minPrice), PriceCents.maxBound(maxPrice));
+            if (cached.isPresent()) {
+                return cached.get();
+            }
+        }
+        String key = categoryId + ":" + (term == null ? "" : term.toLowerCase()) + ":" + minPrice + ":" + maxPrice;
+        return productCounts.facets(key, () -> loadProductFacets(categoryId, term, minPrice, maxPrice));
+    }
+    
+    private ProductFacets loadProductFacets(Long categoryId, String term, BigDecimal minPrice, BigDecimal maxPrice) {
+        BigDecimal[] bounds = ProductFacets.priceBounds();
+        List<List<Object[]>> categoryRows;
+        List<List<Object[]>> bucketRows;
+        if (productShards != null) {
+            categoryRows = productShards.readAll(() -> productRepository.countByCategoryFacet(term, minPrice, maxPrice));
+            bucketRows = categoryId != null
+                    ? List.of(onCategoryShard(categoryId, () -> productRepository.countByPriceBucket(categoryId, term,
+                            bounds[0], bounds[1], bounds[2], bounds[3])))
+                    : productShards.readAll(() -> productRepository.countByPriceBucket(null, term,
+                            bounds[0], bounds[1], bounds[2], bounds[3]));
+        } else {
+            categoryRows = List.of(productRepository.countByCategoryFacet(term, minPrice, maxPrice));
+            bucketRows = List.of(productRepository.countByPriceBucket(categoryId, term,
+                    bounds[0], bounds[1], bounds[2], bounds[3]));
+        }
+        
+        // rows from several shards are summed per category and per bucket
+        Map<Long, ProductFacets.CategoryFacet> categories = new LinkedHashMap<>();
+        for (List<Object[]> rows : categoryRows) {
+            for (Object[] row : rows) {
+                Long id = (Long) row[0];
+                ProductFacets.CategoryFacet previous = categories.get(id);
+                long count = ((Number) row[2]).longValue() + (previous != null ? previous.getCount() : 0);
+                categories.put(id, new ProductFacets.CategoryFacet(id, (String) row[1], count));
+            }
+        }
+        List<ProductFacets.CategoryFacet> categoryFacets = new ArrayList<>(categories.values());
+        if (categoryRows.size() > 1) {
+            categoryFacets.sort(Comparator.comparing(ProductFacets.CategoryFacet::getName));
+        }
+        
+        long[] counts = new long[ProductFacets.PRICE_BUCKET_BOUNDS.length + 1];
+        for (List<Object[]> buckets : bucketRows) {
+            if (!buckets.isEmpty()) {
+                Object[] row = buckets.get(0);
+                for (int i = 0; i < counts.length; i++) {
+                    counts[i] += row[i] == null ? 0 : ((Number) row[i]).longValue();
+                }
+            }
+        }
+        return new ProductFacets(categoryFacets, ProductFacets.priceFacets(counts));
+    }
+    
+    /**
+     * Get products by category with search within a price range (either bound may be null)
+     */
+    @Transactional(readOnly = true)
+    public Page<Product> getProductsByCategoryInPriceRange(Long categoryId, String name, BigDecimal minPrice, BigDecimal maxPrice, Pageable pageable) {
+        if (minPrice == null && maxPrice == null) {
+            return getProductsByCategory(categoryId, name, pageable);
+        }
+        String term = name == null || name.trim().isEmpty() ? null : name.trim();
+        if (catalogSnapshot != null) {
+            Optional<Page<Product>> cached = catalogSnapshot.findProducts(categoryId, term, false,
+                    PriceCents.minBound(minPrice), PriceCents.maxBound(maxPrice), pageable);
+            if (cached.isPresent()) {
+                return cached.get();
+            }
+        }
+        String key = "category-price:" + categoryId + ":" + (term == null ? "" : term.toLowerCase()) + ":" + minPrice + ":" + maxPrice;
+        long total = productCounts.search(key, limit -> onCategoryShard(categoryId,
+                () -> productRepository.countByCategoryIdInPriceRange(categoryId, term, minPrice, maxPrice, limit)));
+        return new PageImpl<>(
+                onCategoryShard(categoryId, () -> productRepository.findByCategoryIdInPriceRange(categoryId, term, minPrice, maxPrice, pageable)),
+                pageable, total);
     }
     
     /**
@@ -68,7 +271,12 @@ public class ProductService {
      */
     @Transactional(readOnly = true)
     public Page<Product> getProductsByCategory(Long categoryId, Pageable pageable) {
-        return productRepository.findByCategoryId(categoryId, pageable);
+        Optional<Page<Product>> cached = fromSnapshot(categoryId, null, false, pageable);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+        return new PageImpl<>(onCategoryShard(categoryId, () -> productRepository.findByCategoryId(categoryId, pageable)),
+                pageable, countInCategory(categoryId, null));
     }
     
     /**
@@ -77,9 +285,16 @@ public class ProductService {
     @Transactional(readOnly = true)
     public Page<Product> getProductsByCategory(Long categoryId, String name, Pageable pageable) {
         if (name == null || name.trim().isEmpty()) {
-            return productRepository.findByCategoryId(categoryId, pageable);
+            return getProductsByCategory(categoryId, pageable);
         }
-        return productRepository.findByCategoryIdAndNameContainingIgnoreCase(categoryId, name.trim(), pageable);
+        String term = name.trim();
+        Optional<Page<Product>> cached = fromSnapshot(categoryId, term, false, pageable);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+        return new PageImpl<>(
+                onCategoryShard(categoryId, () -> productRepository.findByCategoryIdAndNameContainingIgnoreCase(categoryId, term, pageable)),
+                pageable, countInCategory(categoryId, term));
     }
     
     /**
@@ -87,7 +302,13 @@ public class ProductService {
      */
     @Transactional(readOnly = true)
     public List<Product> getProductsByCategory(Long categoryId) {
-        return productRepository.findByCategoryIdWithCategory(categoryId);
+        if (catalogSnapshot != null) {
+            Optional<List<Product>> cached = catalogSnapshot.findProductsByCategory(categoryId);
+            if (cached.isPresent()) {
+                return cached.get();
+            }
+        }
+        return onCategoryShard(categoryId, () -> productRepository.findByCategoryIdWithCategory(categoryId));
     }
     
     /**
@@ -95,13 +316,60 @@ public class ProductService {
      */
     @Transactional(readOnly = true)
     public Optional<Product> getProductById(Long id) {
-        return productRepository.findById(id);
+        if (catalogSnapshot != null) {
+            Optional<Optional<Product>> cached = catalogSnapshot.findProduct(id);
+            if (cached.isPresent()) {
+                return cached.get();
+            }
+        }
+        return loadProductById(id);
     }
     
+    /**
+     * Product detail page read model; concurrent requests for the same product share one query
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public Optional<ProductDetail> getProductDetail(Long id) {
+        if (catalogSnapshot != null) {
+            Optional<Optional<Product>> cached = catalogSnapshot.findProduct(id);
+            if (cached.isPresent()) {
+                return cached.get().map(ProductDetail::of);
+            }
+        }
+        return readCoalescer.execute("product-detail:" + id, () -> inReadTransaction(() -> {
+            if (productShards != null) {
+                return productShards.shardOfProduct(id)
+                        .flatMap(shard -> productShards.read(shard, () -> productRepository.findDetailById(id)));
+            }
+            return productRepository.findDetailById(id);
+        }));
+    }
+
+    /**
+     * Product rows of the category page, optionally filtered by name; concurrent identical requests share one query
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public Page<ProductRow> getProductRowsByCategory(Long categoryId, String name, Pageable pageable) {
+        String term = name == null || name.trim().isEmpty() ? null : name.trim();
+        Optional<Page<Product>> cached = fromSnapshot(categoryId, term, false, pageable);
+        if (cached.isPresent()) {
+            return cached.get().map(ProductRow::of);
+        }
+        String key = "category-rows:" + categoryId + ":" + term + ":" + pageable.getPageNumber() + ":" + pageable.getPageSize() + ":" + pageable.getSort();
+        return readCoalescer.execute(key, () -> inReadTransaction(() -> new PageImpl<>(
+                onCategoryShard(categoryId, () -> productRepository.findRowsByCategoryId(categoryId, term, pageable)),
+                pageable, countInCategory(categoryId, term))));
+    }
+
     /**
      * Save product
      */
     public Product saveProduct(Product product) {
+        readCoalescer.invalidate();
+        if (productShards != null) {
+            return saveProductOnShard(product);
+        }
+        
         // Check if product code already exists (case-insensitive)
         if (product.getId() == null) {
             // New product
@@ -124,18 +392,43 @@ public class ProductService {
             product.setCategory(category.get());
         }
         
-        return productRepository.save(product);
+        boolean isNew = product.getId() == null;
+        List<String> changedFields = isNew ? List.of("code", "name", "price", "category") : changedFields(product);
+        Long previousCategoryId = isNew ? null : productRepository.findById(product.getId())
+                .map(existing -> existing.getCategory().getId()).orElse(null);
+        
+        Product saved = productRepository.save(product);
+        productCounts.productMoved(previousCategoryId, saved.getCategory().getId());
+        outboxService.productChanged(saved, isNew ? OutboxEvent.CREATED : OutboxEvent.UPDATED, changedFields);
+        if (catalogSnapshot != null) {
+            catalogSnapshot.productSaved(saved);
+        }
+        recentItems.productSaved(saved);
+        return saved;
     }
     
     /**
      * Delete product by ID
      */
     public void deleteProduct(Long id) {
-        if (!productRepository.existsById(id)) {
+        readCoalescer.invalidate();
+        if (productShards != null) {
+            deleteProductOnShard(id);
+            return;
+        }
+        
+        Optional<Product> existing = productRepository.findById(id);
+        if (!existing.isPresent()) {
             throw new IllegalArgumentException("Product with ID " + id + " not found");
         }
         
         productRepository.deleteById(id);
+        productCounts.productMoved(existing.get().getCategory().getId(), null);
+        outboxService.deleted("Product", id);
+        if (catalogSnapshot != null) {
+            catalogSnapshot.productDeleted(id);
+        }
+        recentItems.productDeleted(id);
     }
     
     /**
@@ -143,6 +436,9 @@ public class ProductService {
      */
     @Transactional(readOnly = true)
     public boolean existsByCode(String code) {
+        if (productShards != null) {
+            return productShards.codeExists(code);
+        }
         return productRepository.existsByCodeIgnoreCase(code);
     }
     
@@ -150,25 +446,253 @@ public class ProductService {
      * Get paginated products with default sorting
      */
     @Transactional(readOnly = true)
-    public Page<Product> getProductsWithPagination(int page, int size, String sortBy, String sortDir) {
-        Sort sort = sortDir.equalsIgnoreCase("desc") ? 
-                   Sort.by(sortBy).descending() : 
-                   Sort.by(sortBy).ascending();
-        
-        Pageable pageable = PageRequest.of(page, size, sort);
-        return productRepository.findAll(pageable);
+    public Page<Product> getProductsWithPagination(int page, int size, ProductSortKey sortBy, String sortDir) {
+        Pageable pageable = PageRequest.of(page, size, sortBy.sort(sortDir));
+        return getAllProducts(pageable);
     }
     
     /**
      * Get products by category with pagination and sorting
      */
     @Transactional(readOnly = true)
-    public Page<Product> getProductsByCategoryWithPagination(Long categoryId, int page, int size, String sortBy, String sortDir) {
-        Sort sort = sortDir.equalsIgnoreCase("desc") ? 
-                   Sort.by(sortBy).descending() : 
-                   Sort.by(sortBy).ascending();
+    public Page<Product> getProductsByCategoryWithPagination(Long categoryId, int page, int size, ProductSortKey sortBy, String sortDir) {
+        Pageable pageable = PageRequest.of(page, size, sortBy.sort(sortDir));
+        return getProductsByCategory(categoryId, pageable);
+    }
+    
+    /**
+     * Save a product on its category's shard, together with its outbox event. The
+     * code is claimed in the shard directory first. A product whose new category
+     * lives on another shard is copied there under the same ID, the directory is
+     * pointed at the copy, and then the original is removed; a move interrupted
+     * before the removal is finished by ProductShards.synchronize at startup.
+     */
+    private Product saveProductOnShard(Product product) {
+        if (product.getCategory() == null || product.getCategory().getId() == null) {
+            throw new IllegalArgumentException("Category is required");
+        }
+        Optional<Category> category = categoryRepository.findById(product.getCategory().getId());
+        if (!category.isPresent()) {
+            throw new IllegalArgumentException("Category with ID " + product.getCategory().getId() + " not found");
+        }
+        product.setCategory(category.get());
         
-        Pageable pageable = PageRequest.of(page, size, sort);
-        return productRepository.findByCategoryId(categoryId, pageable);
+        Optional<Integer> source = product.getId() == null ? Optional.empty() : productShards.shardOfProduct(product.getId());
+        Product current = source
+                .flatMap(shard -> productShards.read(shard, () -> productRepository.findById(product.getId())))
+                .orElse(null);
+        if (current == null) {
+            product.setId(null);
+        }
+        int target = productShards.shardForCategory(category.get().getId());
+        boolean codeChanged = current == null || !current.getCode().equalsIgnoreCase(product.getCode().trim());
+        boolean moved = current != null && source.get() != target;
+        List<String> changedFields = current == null ? List.of("code", "name", "price", "category") : changedFields(current, product);
+        String eventType = current == null ? OutboxEvent.CREATED : OutboxEvent.UPDATED;
+        
+        if (codeChanged) {
+            productShards.reserveCode(product.getCode(), target);
+        }
+        Product saved;
+        try {
+            saved = productShards.write(target, () -> {
+                Product written = moved ? copyToShard(product, current) : productRepository.save(product);
+                outboxService.productChanged(written, eventType, changedFields);
+                return written;
+            });
+        } catch (RuntimeException e) {
+            if (codeChanged) {
+                productShards.releaseCode(product.getCode());
+            }
+            throw e;
+        }
+        productShards.assignCode(saved.getCode(), saved.getId(), target);
+        productCounts.productMoved(current == null ? null : current.getCategory().getId(), saved.getCategory().getId());
+        if (current != null && codeChanged) {
+            productShards.releaseCode(current.getCode());
+        }
+        if (moved) {
+            productShards.write(source.get(), () -> {
+                productRepository.deleteById(current.getId());
+                return null;
+            });
+        }
+        
+        if (catalogSnapshot != null) {
+            catalogSnapshot.productSaved(saved);
+        }
+        recentItems.productSaved(saved);
+        return saved;
+    }
+    
+    /**
+     * Insert a product on the current shard under its existing ID, with the given state
+     */
+    private Product copyToShard(Product product, Product current) {
+        productRepository.insertWithId(current.getId(), product.getCode(), product.getName(), product.getPrice(),
+                product.getCategory().getId(), current.getCreatedAt(), LocalDateTime.now());
+        Product copy = productRepository.findById(current.getId())
+                .orElseThrow(() -> new IllegalStateException("Product " + current.getId() + " was not copied"));
+        initializeCategory(copy);
+        return copy;
+    }
+    
+    /**
+     * Delete a product from its shard, with its outbox event, and release its code
+     */
+    private void deleteProductOnShard(Long id) {
+        Optional<Integer> shard = productShards.shardOfProduct(id);
+        Optional<Product> existing = shard.flatMap(index -> productShards.read(index, () -> productRepository.findById(id)));
+        if (!existing.isPresent()) {
+            throw new IllegalArgumentException("Product with ID " + id + " not found");
+        }
+        
+        productShards.write(shard.get(), () -> {
+            productRepository.deleteById(id);
+            outboxService.deleted("Product", id);
+            return null;
+        });
+        productShards.releaseCode(existing.get().getCode());
+        productCounts.productMoved(existing.get().getCategory().getId(), null);
+        if (catalogSnapshot != null) {
+            catalogSnapshot.productDeleted(id);
+        }
+        recentItems.productDeleted(id);
+    }
+    
+    /**
+     * Load a product from its shard, or from the repository when products are not sharded
+     */
+    private Optional<Product> loadProductById(Long id) {
+        if (productShards != null) {
+            return productShards.shardOfProduct(id)
+                    .flatMap(shard -> productShards.read(shard, () -> productRepository.findById(id)));
+        }
+        return productRepository.findById(id);
+    }
+    
+    /**
+     * Run a coalesced read in a read-only transaction of its own, even when the caller has one,
+     * so the shared result never belongs to one caller's persistence context
+     */
+    private <T> T inReadTransaction(Supplier<T> query) {
+        return readOnlyTransaction.execute(status -> query.get());
+    }
+    
+    private static void initializeCategory(Product product) {
+        if (product.getCategory() != null) {
+            product.getCategory().getName();
+        }
+    }
+    
+    /**
+     * Run a category-scoped read on the category's shard when products are sharded
+     */
+    private <T> T onCategoryShard(Long categoryId, Supplier<T> query) {
+        if (productShards == null) {
+            return query.get();
+        }
+        return productShards.read(productShards.shardForCategory(categoryId), query);
+    }
+    
+    /**
+     * Run a global paged read on every shard and merge the pages when products are sharded
+     */
+    private Page<Product> acrossShards(Function<Pageable, Page<Product>> query, Pageable pageable) {
+        if (productShards == null) {
+            return query.apply(pageable);
+        }
+        return productShards.gatherPage(query, pageable);
+    }
+    
+    /**
+     * Run a global list query for one page on every shard and merge the rows when products are sharded
+     */
+    private List<Product> windowAcrossShards(Function<Pageable, List<Product>> query, Pageable pageable) {
+        if (productShards == null) {
+            return query.apply(pageable);
+        }
+        return productShards.gatherWindow(query, pageable);
+    }
+    
+    /**
+     * Sum a count over every shard when products are sharded
+     */
+    private long countAcrossShards(Supplier<Long> count) {
+        if (productShards == null) {
+            return count.get();
+        }
+        return productShards.sum(count);
+    }
+    
+    /**
+     * Products in a category (maintained counter), or matching a name search within it (capped, cached briefly)
+     */
+    private long countInCategory(Long categoryId, String name) {
+        if (name == null) {
+            return productCounts.inCategory(categoryId,
+                    () -> onCategoryShard(categoryId, () -> productRepository.countByCategoryId(categoryId)));
+        }
+        return productCounts.search("category:" + categoryId + ":" + name.toLowerCase(),
+                limit -> onCategoryShard(categoryId, () -> productRepository.countByCategoryIdAndName(categoryId, name, limit)));
+    }
+    
+    /**
+     * Total for the product filter: the maintained counters when only a category (or nothing) is
+     * selected, otherwise a briefly cached count capped like a search total
+     */
+    private long countFiltered(Long categoryId, String term, BigDecimal minPrice, BigDecimal maxPrice) {
+        if (term == null && minPrice == null && maxPrice == null) {
+            return categoryId != null ? countInCategory(categoryId, null) : countProducts();
+        }
+        String key = "filter:" + categoryId + ":" + (term == null ? "" : term.toLowerCase()) + ":" + minPrice + ":" + maxPrice;
+        if (categoryId != null) {
+            return productCounts.search(key, limit -> onCategoryShard(categoryId,
+                    () -> productRepository.countFilterProducts(categoryId, term, minPrice, maxPrice, limit)));
+        }
+        return productCounts.search(key,
+                limit -> countAcrossShards(() -> productRepository.countFilterProducts(null, term, minPrice, maxPrice, limit)));
+    }
+    
+    /**
+     * Fields of an existing product that the given state changes
+     */
+    private List<String> changedFields(Product product) {
+        Optional<Product> existing = productRepository.findById(product.getId());
+        if (!existing.isPresent()) {
+            return List.of("code", "name", "price", "category");
+        }
+        return changedFields(existing.get(), product);
+    }
+    
+    private List<String> changedFields(Product current, Product product) {
+        List<String> fields = new ArrayList<>();
+        if (!Objects.equals(current.getCode(), product.getCode())) {
+            fields.add("code");
+        }
+        if (!Objects.equals(current.getName(), product.getName())) {
+            fields.add("name");
+        }
+        if (current.getPrice() == null || product.getPrice() == null
+                ? current.getPrice() != product.getPrice()
+                : current.getPrice().compareTo(product.getPrice()) != 0) {
+            fields.add("price");
+        }
+        Long currentCategoryId = current.getCategory() != null ? current.getCategory().getId() : null;
+        Long newCategoryId = product.getCategory() != null ? product.getCategory().getId() : null;
+        if (!Objects.equals(currentCategoryId, newCategoryId)) {
+            fields.add("category");
+        }
+        return fields;
+    }
+    
+    /**
+     * Serve a product page from the in-memory catalog when it is enabled and loaded
+     */
+    private Optional<Page<Product>> fromSnapshot(Long categoryId, String searchTerm, boolean matchCode, Pageable pageable) {
+        if (catalogSnapshot == null) {
+            return Optional.empty();
+        }
+        return catalogSnapshot.findProducts(categoryId, searchTerm, matchCode, pageable);
     }
 }
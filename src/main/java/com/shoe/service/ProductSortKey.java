@@ -0,0 +1,59 @@
+package com.shoe.service;
+
+import org.springframework.data.domain.Sort;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Columns the product lists may be sorted by. Each key is backed by an index
+ * (see {@code Product}) and owns its two {@link Sort} instances, so only a
+ * fixed set of ORDER BY variants ever reaches the query plan cache.
+ */
+public enum ProductSortKey {
+
+    NAME("name"),
+    CODE("code"),
+    PRICE("price"),
+    CATEGORY_NAME("category.name");
+
+    private static final Map<String, ProductSortKey> BY_PROPERTY = new HashMap<>();
+
+    static {
+        for (ProductSortKey key : values()) {
+            BY_PROPERTY.put(key.property, key);
+        }
+    }
+
+    private final String property;
+    private final Sort ascending;
+    private final Sort descending;
+
+    ProductSortKey(String property) {
+        this.property = property;
+        this.ascending = Sort.by(Sort.Direction.ASC, property);
+        this.descending = Sort.by(Sort.Direction.DESC, property);
+    }
+
+    /**
+     * Look up a key by its request value ("name", "code", "price", "category.name")
+     */
+    public static ProductSortKey fromProperty(String property) {
+        ProductSortKey key = BY_PROPERTY.get(property);
+        if (key == null) {
+            throw new IllegalArgumentException("Unsupported product sort key");
+        }
+        return key;
+    }
+
+    /**
+     * Sort in the given direction; anything but "desc" is ascending
+     */
+    public Sort sort(String direction) {
+        return "desc".equalsIgnoreCase(direction) ? descending : ascending;
+    }
+
+    public String getProperty() {
+        return property;
+    }
+}
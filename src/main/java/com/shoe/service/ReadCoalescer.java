@@ -0,0 +1,119 @@
+package com.shoe.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight for identical reads: while a read for a key is running, other
+ * callers asking for the same key wait for its result instead of querying again.
+ *
+ * Nothing is cached; a flight is forgotten as soon as it completes. Every
+ * committed write starts a new generation, so a read that began before the
+ * commit is never joined by a caller that arrives after it. A follower waits
+ * at most {@code coalescing.max-wait-ms} and then runs the read itself, as it
+ * does when the leader fails.
+ *
+ * The leader's result is handed to every follower as it is, so only immutable
+ * read models (records such as ProductDetail and ProductRow) may be coalesced,
+ * never JPA entities.
+ */
+@Component
+public class ReadCoalescer {
+
+    private final ConcurrentHashMap<String, CompletableFuture<Object>> flights = new ConcurrentHashMap<>();
+
+    private final AtomicLong generation = new AtomicLong();
+
+    private final LongAdder calls = new LongAdder();
+
+    private final LongAdder leaders = new LongAdder();
+
+    private final LongAdder joined = new LongAdder();
+
+    private final LongAdder fallbacks = new LongAdder();
+
+    private final boolean enabled;
+
+    private final long maxWaitMs;
+
+    public ReadCoalescer(@Value("${coalescing.enabled:true}") boolean enabled,
+                         @Value("${coalescing.max-wait-ms:2000}") long maxWaitMs) {
+        this.enabled = enabled;
+        this.maxWaitMs = maxWaitMs;
+    }
+
+    /**
+     * Run the read, or share the result of an identical read already in flight
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String key, Supplier<T> read) {
+        if (!enabled) {
+            return read.get();
+        }
+        calls.increment();
+        String flightKey = generation.get() + ":" + key;
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> running = flights.putIfAbsent(flightKey, flight);
+
+        if (running == null) {
+            leaders.increment();
+            try {
+                T result = read.get();
+                flight.complete(result);
+                return result;
+            } catch (RuntimeException | Error e) {
+                flight.completeExceptionally(e);
+                throw e;
+            } finally {
+                flights.remove(flightKey, flight);
+            }
+        }
+
+        try {
+            T result = (T) running.get(maxWaitMs, TimeUnit.MILLISECONDS);
+            joined.increment();
+            return result;
+        } catch (TimeoutException | ExecutionException e) {
+            fallbacks.increment();
+            return read.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a coalesced read", e);
+        }
+    }
+
+    /**
+     * Start a new generation once the current transaction commits
+     */
+    public void invalidate() {
+        AfterCommit.run(generation::incrementAndGet);
+    }
+
+    /**
+     * Calls, leaders (reads that hit the database), joined followers, fallbacks and the coalescing ratio
+     */
+    public Map<String, Object> getStats() {
+        long total = calls.sum();
+        long shared = joined.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("calls", total);
+        stats.put("leaders", leaders.sum());
+        stats.put("joined", shared);
+        stats.put("fallbacks", fallbacks.sum());
+        stats.put("inFlight", flights.size());
+        stats.put("coalescingRatio", total == 0 ? 0.0 : (double) shared / total);
+        return stats;
+    }
+}
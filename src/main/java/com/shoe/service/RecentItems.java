@@ -0,0 +1,237 @@
+package com.shoe.service;
+
+import com.shoe.datasource.ProductShards;
+import com.shoe.entity.Category;
+import com.shoe.entity.Product;
+import com.shoe.repository.CategoryRepository;
+import com.shoe.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Recently created or updated categories and products for the home page and
+ * the dashboard, served from memory.
+ *
+ * Each kind is a fixed-size ring of immutable entries that writers append to
+ * without locking; a full ring overwrites its oldest entry. Saves and deletes
+ * append after their transaction commits (a delete appends a tombstone), and
+ * the rings are seeded from the newest rows by {@code updated_at} at startup.
+ * A read keeps the newest entry per ID, so an item updated several times is
+ * listed once.
+ */
+@Component
+public class RecentItems {
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired(required = false)
+    private ProductShards productShards;
+
+    private final Ring<RecentCategory> categories;
+
+    private final Ring<RecentProduct> products;
+
+    public RecentItems(@Value("${recent.capacity:64}") int capacity) {
+        this.categories = new Ring<>(capacity);
+        this.products = new Ring<>(capacity);
+    }
+
+    /**
+     * Fill the rings with the most recently updated rows
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void load() {
+        Pageable newest = PageRequest.of(0, categories.capacity(),
+                Sort.by(Sort.Order.desc("updatedAt"), Sort.Order.desc("id")));
+        List<Category> recentCategories = categoryRepository.findAll(newest).getContent();
+        List<Product> recentProducts = productShards != null
+                ? productShards.gatherWindow(productRepository::findAllBy, newest)
+                : productRepository.findAllBy(newest);
+
+        // oldest first, so the newest rows end up as the newest entries
+        for (int i = recentCategories.size() - 1; i >= 0; i--) {
+            Category category = recentCategories.get(i);
+            categories.add(RecentCategory.of(category, timestampOf(category.getUpdatedAt())));
+        }
+        for (int i = recentProducts.size() - 1; i >= 0; i--) {
+            Product product = recentProducts.get(i);
+            products.add(RecentProduct.of(product, timestampOf(product.getUpdatedAt())));
+        }
+    }
+
+    /**
+     * Most recently changed categories, newest first
+     */
+    public List<RecentCategory> getCategories(int limit) {
+        return newest(categories, RecentCategory::id, RecentCategory::changedAt, RecentCategory::deleted, limit);
+    }
+
+    /**
+     * Most recently changed products, newest first; category names follow later renames
+     */
+    public List<RecentProduct> getProducts(int limit) {
+        Map<Long, RecentCategory> renamed = new HashMap<>();
+        for (RecentCategory category : newest(categories, RecentCategory::id, RecentCategory::changedAt, RecentCategory::deleted,
+                categories.capacity())) {
+            renamed.put(category.id(), category);
+        }
+        List<RecentProduct> result = new ArrayList<>();
+        for (RecentProduct product : newest(products, RecentProduct::id, RecentProduct::changedAt, RecentProduct::deleted, limit)) {
+            RecentCategory category = renamed.get(product.categoryId());
+            result.add(category != null && category.changedAt().isAfter(product.changedAt())
+                    ? product.withCategoryName(category.name())
+                    : product);
+        }
+        return result;
+    }
+
+    /**
+     * Append a saved product once the transaction commits
+     */
+    public void productSaved(Product product) {
+        RecentProduct entry = RecentProduct.of(product, null);
+        AfterCommit.run(() -> products.add(entry.changedNow()));
+    }
+
+    /**
+     * Append a tombstone for a deleted product once the transaction commits
+     */
+    public void productDeleted(Long id) {
+        AfterCommit.run(() -> products.add(RecentProduct.tombstone(id)));
+    }
+
+    /**
+     * Append a saved category once the transaction commits
+     */
+    public void categorySaved(Category category) {
+        RecentCategory entry = RecentCategory.of(category, null);
+        AfterCommit.run(() -> categories.add(entry.changedNow()));
+    }
+
+    /**
+     * Append a tombstone for a deleted category once the transaction commits
+     */
+    public void categoryDeleted(Long id) {
+        AfterCommit.run(() -> categories.add(RecentCategory.tombstone(id)));
+    }
+
+    private static <T> List<T> newest(Ring<T> ring, Function<T, Long> id, Function<T, LocalDateTime> changedAt,
+                                      Predicate<T> deleted, int limit) {
+        // ring order is append order; the timestamp decides between a seeded row and a live change
+        Map<Long, T> latest = new HashMap<>();
+        for (T entry : ring.snapshot()) {
+            latest.merge(id.apply(entry), entry,
+                    (current, candidate) -> changedAt.apply(candidate).isBefore(changedAt.apply(current)) ? current : candidate);
+        }
+        return latest.values().stream()
+                .filter(deleted.negate())
+                .sorted(Comparator.comparing(changedAt).reversed())
+                .limit(limit)
+                .toList();
+    }
+
+    private static LocalDateTime timestampOf(LocalDateTime updatedAt) {
+        return updatedAt != null ? updatedAt : LocalDateTime.MIN;
+    }
+
+    public record RecentCategory(Long id, String name, String description, LocalDateTime changedAt, boolean deleted) {
+
+        static RecentCategory of(Category category, LocalDateTime changedAt) {
+            return new RecentCategory(category.getId(), category.getName(), category.getDescription(), changedAt, false);
+        }
+
+        static RecentCategory tombstone(Long id) {
+            return new RecentCategory(id, null, null, LocalDateTime.now(), true);
+        }
+
+        RecentCategory changedNow() {
+            return new RecentCategory(id, name, description, LocalDateTime.now(), false);
+        }
+    }
+
+    public record RecentProduct(Long id, String code, String name, BigDecimal price, Long categoryId, String categoryName,
+                                LocalDateTime changedAt, boolean deleted) {
+
+        static RecentProduct of(Product product, LocalDateTime changedAt) {
+            Category category = product.getCategory();
+            return new RecentProduct(product.getId(), product.getCode(), product.getName(), product.getPrice(),
+                    category != null ? category.getId() : null, category != null ? category.getName() : null, changedAt, false);
+        }
+
+        static RecentProduct tombstone(Long id) {
+            return new RecentProduct(id, null, null, null, null, null, LocalDateTime.now(), true);
+        }
+
+        RecentProduct changedNow() {
+            return new RecentProduct(id, code, name, price, categoryId, categoryName, LocalDateTime.now(), false);
+        }
+
+        RecentProduct withCategoryName(String name) {
+            return new RecentProduct(id, code, this.name, price, categoryId, name, changedAt, deleted);
+        }
+    }
+
+    /**
+     * Bounded multi-writer ring. A writer claims a sequence number and stores
+     * its entry in that slot; a reader takes the slots whose sequence is still
+     * the one it expects, skipping slots being overwritten.
+     */
+    private static final class Ring<T> {
+
+        private final AtomicReferenceArray<Slot<T>> slots;
+
+        private final AtomicLong next = new AtomicLong();
+
+        Ring(int capacity) {
+            this.slots = new AtomicReferenceArray<>(Math.max(1, capacity));
+        }
+
+        int capacity() {
+            return slots.length();
+        }
+
+        void add(T item) {
+            long sequence = next.getAndIncrement();
+            slots.set((int) (sequence % slots.length()), new Slot<>(sequence, item));
+        }
+
+        List<T> snapshot() {
+            long end = next.get();
+            List<T> items = new ArrayList<>(slots.length());
+            for (long sequence = Math.max(0, end - slots.length()); sequence < end; sequence++) {
+                Slot<T> slot = slots.get((int) (sequence % slots.length()));
+                if (slot != null && slot.sequence == sequence) {
+                    items.add(slot.item);
+                }
+            }
+            return items;
+        }
+
+        private record Slot<T>(long sequence, T item) {
+        }
+    }
+}
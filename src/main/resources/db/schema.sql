@@ -0,0 +1,65 @@
+-- Schema for the prod profile, matching the JPA mappings (checked at startup
+-- by ddl-auto=validate). Spring runs it for embedded databases only; an
+-- external database is provisioned with the same statements before deployment.
+
+CREATE TABLE categories (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name VARCHAR(100) NOT NULL,
+    description VARCHAR(500),
+    created_at TIMESTAMP(6),
+    updated_at TIMESTAMP(6)
+);
+CREATE INDEX idx_categories_name ON categories (name);
+CREATE INDEX idx_categories_description ON categories (description);
+
+CREATE TABLE products (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    code VARCHAR(50) NOT NULL UNIQUE,
+    name VARCHAR(200) NOT NULL,
+    price NUMERIC(12, 2) NOT NULL,
+    category_id BIGINT NOT NULL REFERENCES categories (id),
+    created_at TIMESTAMP(6),
+    updated_at TIMESTAMP(6)
+);
+CREATE INDEX idx_products_name ON products (name);
+CREATE INDEX idx_products_price ON products (price);
+CREATE INDEX idx_products_category_name ON products (category_id, name);
+CREATE INDEX idx_products_updated_at ON products (updated_at);
+
+CREATE SEQUENCE change_log_seq START WITH 1 INCREMENT BY 50;
+CREATE TABLE change_log (
+    id BIGINT PRIMARY KEY,
+    entity_type VARCHAR(50) NOT NULL,
+    entity_id BIGINT NOT NULL,
+    operation VARCHAR(10) NOT NULL,
+    changed_fields VARCHAR(500),
+    actor VARCHAR(100),
+    created_at TIMESTAMP(6) NOT NULL,
+    publish_seq BIGINT NOT NULL
+);
+CREATE INDEX idx_change_log_entity_time ON change_log (entity_type, created_at);
+CREATE UNIQUE INDEX idx_change_log_publish_seq ON change_log (publish_seq);
+
+CREATE SEQUENCE outbox_event_seq START WITH 1 INCREMENT BY 50;
+CREATE TABLE outbox_events (
+    id BIGINT PRIMARY KEY,
+    aggregate_type VARCHAR(50) NOT NULL,
+    aggregate_id BIGINT NOT NULL,
+    event_type VARCHAR(20) NOT NULL,
+    payload VARCHAR(4000),
+    changed_fields VARCHAR(500),
+    actor VARCHAR(100),
+    created_at TIMESTAMP(6) NOT NULL,
+    published_at TIMESTAMP(6),
+    publish_seq BIGINT,
+    origin_shard INT,
+    origin_id BIGINT
+);
+CREATE INDEX idx_outbox_published ON outbox_events (published_at, created_at, id);
+CREATE UNIQUE INDEX idx_outbox_publish_seq ON outbox_events (publish_seq);
+CREATE UNIQUE INDEX idx_outbox_origin ON outbox_events (origin_shard, origin_id);
+
+CREATE TABLE replication_heartbeat (
+    id INT PRIMARY KEY,
+    beat_at BIGINT NOT NULL
+);
@@ -254,5 +254,112 @@ document.addEventListener('DOMContentLoaded', function() {
         });
     });
     
+    // Live updates: patch open list and dashboard pages from the change stream
+    const liveContainer = document.querySelector('[data-live-updates]');
+    if (liveContainer && window.EventSource) {
+        const source = new EventSource(document.body.dataset.eventsUrl || '/events/stream');
+        const rowAttribute = { Product: 'data-product-id', Category: 'data-category-id' };
+
+        function setField(row, field, value) {
+            const cell = row.querySelector('[data-field="' + field + '"]');
+            if (cell && value !== undefined) {
+                cell.textContent = value === null ? '' : value;
+            }
+        }
+
+        function adjustCounter(name, delta) {
+            document.querySelectorAll('[data-counter="' + name + '"]').forEach(function(counter) {
+                const value = parseInt(counter.textContent, 10);
+                if (!isNaN(value)) {
+                    counter.textContent = Math.max(0, value + delta);
+                }
+            });
+        }
+
+        // id of the last change applied; replayed or repeated events are applied once
+        let lastAppliedId = 0;
+
+        function showStaleNotice(message) {
+            if (document.getElementById('live-stale-notice')) {
+                return;
+            }
+            const notice = document.createElement('div');
+            notice.id = 'live-stale-notice';
+            notice.className = 'alert alert-info d-flex justify-content-between align-items-center';
+            notice.innerHTML = '<span><i class="fas fa-sync-alt me-2"></i>' + message + '</span>' +
+                '<a href="#" class="btn btn-sm btn-outline-primary">Refresh</a>';
+            notice.querySelector('a').addEventListener('click', function(e) {
+                e.preventDefault();
+                window.location.reload();
+            });
+            liveContainer.insertBefore(notice, liveContainer.children[1] || null);
+        }
+
+        source.addEventListener('change', function(e) {
+            const id = Number(e.lastEventId);
+            if (id && id <= lastAppliedId) {
+                return;
+            }
+            lastAppliedId = id || lastAppliedId;
+            const event = JSON.parse(e.data);
+            const attribute = rowAttribute[event.aggregateType];
+            if (!attribute) {
+                return;
+            }
+            const rows = liveContainer.querySelectorAll('tr[' + attribute + '="' + event.aggregateId + '"]');
+            const payload = event.payload || {};
+
+            if (event.eventType === 'DELETED') {
+                rows.forEach(function(row) {
+                    row.remove();
+                });
+                if (rows.length > 0) {
+                    adjustCounter('totalItems', -1);
+                }
+            } else if (event.eventType === 'UPDATED') {
+                rows.forEach(function(row) {
+                    setField(row, 'code', payload.code);
+                    setField(row, 'name', payload.name);
+                    setField(row, 'price', payload.price !== undefined ? Number(payload.price).toFixed(2) : undefined);
+                    setField(row, 'category', payload.categoryName);
+                    setField(row, 'description', payload.description);
+                });
+                // a renamed category shows up in the category column of product rows
+                if (event.aggregateType === 'Category') {
+                    liveContainer.querySelectorAll('a[href$="/categories/view/' + event.aggregateId + '"][data-field="category"]')
+                        .forEach(function(link) {
+                            link.textContent = payload.name;
+                        });
+                }
+            } else if (event.eventType === 'CREATED') {
+                const listType = liveContainer.dataset.liveUpdates;
+                if ((listType === 'products' && event.aggregateType === 'Product') ||
+                    (listType === 'categories' && event.aggregateType === 'Category')) {
+                    adjustCounter('totalItems', 1);
+                    showStaleNotice('New items were added.');
+                }
+            }
+        });
+
+        // more changes were missed than the server replays: stop patching and offer a reload
+        source.addEventListener('reset', function() {
+            source.close();
+            showStaleNotice('This page is out of date.');
+        });
+
+        source.addEventListener('counters', function(e) {
+            const counters = JSON.parse(e.data);
+            Object.keys(counters).forEach(function(name) {
+                document.querySelectorAll('[data-counter="' + name + '"]').forEach(function(counter) {
+                    counter.textContent = counters[name];
+                });
+            });
+        });
+
+        window.addEventListener('beforeunload', function() {
+            source.close();
+        });
+    }
+
     console.log('Spring Store Management System initialized successfully!');
 });
@@ -0,0 +1,125 @@
+package com.shoe.datasource;
+
+import com.shoe.entity.Category;
+import com.shoe.entity.OutboxEvent;
+import com.shoe.entity.Product;
+import com.shoe.event.ChangeEvent;
+import com.shoe.service.CategoryService;
+import com.shoe.service.OutboxService;
+import com.shoe.service.ProductService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "datasource.shards.enabled=true",
+        "datasource.shards.urls=jdbc:h2:mem:merge-shard1;DB_CLOSE_DELAY=-1,jdbc:h2:mem:merge-shard2;DB_CLOSE_DELAY=-1",
+        "spring.datasource.url=jdbc:h2:mem:product-shards-test"
+})
+class ProductShardsTest {
+
+    private static final int PAGE_SIZE = 4;
+
+    @Autowired
+    private ProductShards productShards;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Test
+    void pagesMergeAcrossShardsInDatabaseOrder() {
+        List<Long> categoryIds = new ArrayList<>();
+        for (String name : List.of("Boots", "Sandals", "Clogs")) {
+            categoryIds.add(categoryService.saveCategory(new Category(name, null)).getId());
+        }
+        assertThat(categoryIds.stream().map(productShards::shardForCategory).distinct()).hasSize(3);
+
+        // mixed case and repeated names and prices: the merge must order them as the shards do
+        String[] names = {"alpine", "Alpine", "Zephyr", "beacon", "Trail", "alpine", "Canyon", "trail", "Meadow", "Beacon", "zenith"};
+        for (int i = 0; i < names.length; i++) {
+            Category category = new Category();
+            category.setId(categoryIds.get(i % categoryIds.size()));
+            BigDecimal price = new BigDecimal((20 + i % 4) + ".00");
+            productService.saveProduct(new Product("MERGE-" + (char) ('K' - i), names[i], price, category));
+        }
+        List<Product> all = productService.getAllProducts(PageRequest.of(0, 100, Sort.by("id"))).getContent();
+        assertThat(all).filteredOn(product -> product.getCode().startsWith("MERGE-")).hasSize(names.length);
+
+        assertPagesInOrder(all, "name", Product::getName);
+        assertPagesInOrder(all, "code", Product::getCode);
+        assertPagesInOrder(all, "price", Product::getPrice);
+    }
+
+    @Test
+    void movedProductKeepsItsIdAndItsEventsReachTheFeed() throws Exception {
+        Long from = categoryService.saveCategory(new Category("Moccasins", null)).getId();
+        Long to = categoryService.saveCategory(new Category("Espadrilles", null)).getId();
+        assertThat(productShards.shardForCategory(from)).isNotEqualTo(productShards.shardForCategory(to));
+
+        Category category = new Category();
+        category.setId(from);
+        Long id = productService.saveProduct(new Product("MOVE-1", "Driver", new BigDecimal("45.00"), category)).getId();
+
+        Category target = new Category();
+        target.setId(to);
+        Product update = new Product("MOVE-1", "Driver", new BigDecimal("45.00"), target);
+        update.setId(id);
+        assertThat(productService.saveProduct(update).getId()).isEqualTo(id);
+
+        assertThat(productShards.shardOfProduct(id)).contains(productShards.shardForCategory(to));
+        assertThat(productService.getProductById(id))
+                .hasValueSatisfying(product -> assertThat(product.getCategory().getId()).isEqualTo(to));
+        assertThat(productService.getAllProducts()).filteredOn(product -> product.getId().equals(id)).hasSize(1);
+
+        // both events were written on product shards and are published from shard 0 in order
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        List<String> events = publishedEventTypes(id);
+        while (events.size() < 2 && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+            events = publishedEventTypes(id);
+        }
+        assertThat(events).containsExactly(OutboxEvent.CREATED, OutboxEvent.UPDATED);
+    }
+
+    private List<String> publishedEventTypes(Long productId) {
+        return outboxService.getPublishedAfter(0L, 1000).stream()
+                .filter(event -> "Product".equals(event.getAggregateType()) && productId.equals(event.getAggregateId()))
+                .map(ChangeEvent::getEventType)
+                .toList();
+    }
+
+    private <T extends Comparable<T>> void assertPagesInOrder(List<Product> all, String property, Function<Product, T> key) {
+        for (Sort.Direction direction : Sort.Direction.values()) {
+            Comparator<Product> byKey = Comparator.comparing(key);
+            List<Long> expected = all.stream()
+                    .sorted((direction.isAscending() ? byKey : byKey.reversed()).thenComparing(Product::getId))
+                    .map(Product::getId)
+                    .toList();
+
+            List<Long> paged = new ArrayList<>();
+            for (int page = 0; page * PAGE_SIZE < all.size(); page++) {
+                Page<Product> result = productService.getAllProducts(PageRequest.of(page, PAGE_SIZE, Sort.by(direction, property)));
+                result.forEach(product -> paged.add(product.getId()));
+            }
+            assertThat(paged).as("pages by %s %s", property, direction).isEqualTo(expected);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.shoe.datasource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReplicaRoutingDataSourceTest {
+
+    private static final long MAX_LAG_MS = 2000;
+
+    private DataSource primary;
+
+    private DataSource fresh;
+
+    private DataSource stale;
+
+    private ReplicaRoutingDataSource routingDataSource;
+
+    private ReplicaHealthChecker checker;
+
+    @BeforeEach
+    void setUp() {
+        // three separate databases; nothing replicates, so the test sets each replica's heartbeat itself
+        primary = database("replica-routing-primary");
+        fresh = database("replica-routing-fresh");
+        stale = database("replica-routing-stale");
+
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        replicas.put("replica-0", fresh);
+        replicas.put("replica-1", stale);
+        routingDataSource = new ReplicaRoutingDataSource(primary, replicas);
+        routingDataSource.afterPropertiesSet();
+        checker = new ReplicaHealthChecker(routingDataSource, primary, replicas, MAX_LAG_MS, true);
+    }
+
+    @Test
+    void staleReplicaIsSkippedForReadsAndWritesGoToThePrimary() {
+        long now = System.currentTimeMillis();
+        stampHeartbeat(fresh, now);
+        stampHeartbeat(stale, now - 60_000);
+
+        checker.check();
+        assertThat(routingDataSource.getHealthyReplicas()).containsExactly("replica-0");
+        // the check stamped the primary
+        assertThat(new JdbcTemplate(primary).queryForObject(
+                "SELECT beat_at FROM replication_heartbeat WHERE id = 1", Long.class)).isGreaterThanOrEqualTo(now);
+
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        Map<String, Long> before = routingDataSource.getRoutedCounts();
+
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        for (int i = 0; i < 10; i++) {
+            Long beatAt = readOnly.execute(status -> jdbcTemplate.queryForObject(
+                    "SELECT beat_at FROM replication_heartbeat WHERE id = 1", Long.class));
+            assertThat(beatAt).isEqualTo(now);
+        }
+
+        TransactionTemplate readWrite = new TransactionTemplate(transactionManager);
+        readWrite.executeWithoutResult(status -> jdbcTemplate.update(
+                "INSERT INTO categories (name, description) VALUES ('Routed', NULL)"));
+
+        Map<String, Long> after = routingDataSource.getRoutedCounts();
+        assertThat(after.get("replica-0") - before.get("replica-0")).isEqualTo(10);
+        assertThat(after.get("replica-1")).isEqualTo(before.get("replica-1"));
+        assertThat(after.get(ReplicaRoutingDataSource.PRIMARY) - before.get(ReplicaRoutingDataSource.PRIMARY)).isEqualTo(1);
+        assertThat(new JdbcTemplate(primary).queryForObject(
+                "SELECT COUNT(*) FROM categories WHERE name = 'Routed'", Long.class)).isEqualTo(1);
+    }
+
+    @Test
+    void readsFallBackToThePrimaryWhenEveryReplicaLags() {
+        stampHeartbeat(fresh, System.currentTimeMillis() - 60_000);
+        stampHeartbeat(stale, System.currentTimeMillis() - 60_000);
+
+        checker.check();
+        assertThat(routingDataSource.getHealthyReplicas()).isEmpty();
+
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+        TransactionTemplate readOnly = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        readOnly.setReadOnly(true);
+        readOnly.execute(status -> new JdbcTemplate(dataSource).queryForObject("SELECT COUNT(*) FROM categories", Long.class));
+
+        assertThat(routingDataSource.getRoutedCounts())
+                .containsEntry(ReplicaRoutingDataSource.PRIMARY, 1L)
+                .containsEntry("replica-0", 0L)
+                .containsEntry("replica-1", 0L);
+    }
+
+    /**
+     * A fresh in-memory database with the prod schema, which includes the heartbeat table
+     */
+    private static DataSource database(String name) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + name + "-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+        new ResourceDatabasePopulator(new ClassPathResource("db/schema.sql")).execute(dataSource);
+        return dataSource;
+    }
+
+    private static void stampHeartbeat(DataSource replica, long beatAt) {
+        new JdbcTemplate(replica).update("INSERT INTO replication_heartbeat (id, beat_at) VALUES (1, ?)", beatAt);
+    }
+}
@@ -0,0 +1,162 @@
+package com.shoe.idempotency;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IdempotencyStoreTest {
+
+    private static final String KEY = "6f1c2a9e-secret-client-key";
+
+    private final IdempotencyStore store = new IdempotencyStore(60_000, 5_000, 100);
+
+    private final AtomicInteger writes = new AtomicInteger();
+
+    @Test
+    void sameKeyAndRequestReplaysTheFirstResult() {
+        String first = store.execute("test", KEY, "request", this::write);
+        String second = store.execute("test", KEY, "request", this::write);
+
+        assertThat(second).isEqualTo(first);
+        assertThat(writes.get()).isEqualTo(1);
+        assertThat(store.getStats()).containsEntry("executed", 1L).containsEntry("replayed", 1L);
+    }
+
+    @Test
+    void requestsWithoutKeyOrInAnotherScopeRunAgain() {
+        store.execute("test", KEY, "request", this::write);
+        store.execute("other", KEY, "request", this::write);
+        store.execute("test", null, "request", this::write);
+        store.execute("test", " ", "request", this::write);
+
+        assertThat(writes.get()).isEqualTo(4);
+    }
+
+    @Test
+    void keyReusedForAnotherRequestIsRejectedWithoutEchoingTheKey() {
+        store.execute("test", KEY, "request", this::write);
+
+        assertThatThrownBy(() -> store.execute("test", KEY, "different request", this::write))
+                .isInstanceOf(IllegalArgumentException.class)
+                .message().doesNotContain(KEY);
+        assertThat(writes.get()).isEqualTo(1);
+        assertThat(store.getStats()).containsEntry("rejected", 1L);
+    }
+
+    @Test
+    void failedWriteIsNotRememberedSoItCanBeRetried() {
+        assertThatThrownBy(() -> store.execute("test", KEY, "request", () -> {
+            writes.incrementAndGet();
+            throw new IllegalArgumentException("Product with code 'X' already exists");
+        })).isInstanceOf(IllegalArgumentException.class).hasMessageContaining("already exists");
+
+        String retried = store.execute("test", KEY, "request", this::write);
+
+        assertThat(retried).isEqualTo("result 2");
+        assertThat(store.getStats()).containsEntry("keys", 1);
+    }
+
+    @Test
+    void duplicateWaitsForTheRunningWrite() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> store.execute("test", KEY, "request", () -> {
+            started.countDown();
+            await(release);
+            return write();
+        }));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        releaseLater(release);
+        String duplicate = store.execute("test", KEY, "request", this::write);
+
+        assertThat(duplicate).isEqualTo(first.get(5, TimeUnit.SECONDS));
+        assertThat(writes.get()).isEqualTo(1);
+    }
+
+    @Test
+    void duplicateOfAWriteStillRunningAfterTheWaitIsAConflict() throws Exception {
+        IdempotencyStore store = new IdempotencyStore(60_000, 50, 100);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> store.execute("test", KEY, "request", () -> {
+            started.countDown();
+            await(release);
+            return write();
+        }));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        try {
+            assertThatThrownBy(() -> store.execute("test", KEY, "request", this::write))
+                    .isInstanceOf(IdempotencyConflictException.class);
+        } finally {
+            release.countDown();
+        }
+        assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("result 1");
+        assertThat(writes.get()).isEqualTo(1);
+    }
+
+    @Test
+    void duplicateOfAFailedWriteGetsTheSameFailure() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> store.execute("test", KEY, "request", () -> {
+            started.countDown();
+            await(release);
+            throw new IllegalArgumentException("Category with ID 7 not found");
+        }));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        releaseLater(release);
+        assertThatThrownBy(() -> store.execute("test", KEY, "request", this::write))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> first.get(5, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(IllegalArgumentException.class);
+        assertThat(writes.get()).isZero();
+    }
+
+    @Test
+    void concurrentWritersOverCapacityAreEvictedDownAgain() throws Exception {
+        // 8 writers and 20 times the capacity; one of them evicts at a time, the rest carry on
+        ExecutorService writers = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 2_000; i++) {
+            String key = "key-" + i;
+            writers.execute(() -> store.execute("test", key, "request", this::write));
+        }
+        writers.shutdown();
+        assertThat(writers.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+        store.execute("test", KEY, "request", this::write);
+
+        assertThat(writes.get()).isEqualTo(2_001);
+        assertThat((Integer) store.getStats().get("keys")).isLessThanOrEqualTo(100);
+    }
+
+    private String write() {
+        return "result " + writes.incrementAndGet();
+    }
+
+    /**
+     * Let the first write finish shortly after the duplicate (on the test thread) started waiting for it
+     */
+    private static void releaseLater(CountDownLatch release) {
+        CompletableFuture.runAsync(release::countDown, CompletableFuture.delayedExecutor(100, TimeUnit.MILLISECONDS));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
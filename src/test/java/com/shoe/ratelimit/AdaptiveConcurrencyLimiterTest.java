@@ -0,0 +1,90 @@
+package com.shoe.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final int WINDOW = 5;
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(5);
+
+    @Test
+    void refusesBeyondTheLimitUntilASlotIsReleased() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 10, WINDOW, 2.0);
+
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isFalse();
+        assertThat(limiter.getInFlight()).isEqualTo(2);
+
+        limiter.release(FAST);
+        assertThat(limiter.tryAcquire()).isTrue();
+    }
+
+    @Test
+    void growsByOneWhileUsedAndLatencyHolds() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(4, 1, 10, WINDOW, 2.0);
+        // two long-running requests keep half the limit in use
+        limiter.tryAcquire();
+        limiter.tryAcquire();
+
+        window(limiter, FAST);
+
+        assertThat(limiter.getLimit()).isEqualTo(5);
+        assertThat(limiter.getBaselineMillis()).isEqualTo(1);
+    }
+
+    @Test
+    void doesNotGrowWhileMostlyIdle() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(4, 1, 10, WINDOW, 2.0);
+
+        window(limiter, FAST);
+
+        assertThat(limiter.getLimit()).isEqualTo(4);
+    }
+
+    @Test
+    void shrinksWhenLatencyRisesButNotBelowTheMinimum() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(5, 2, 10, WINDOW, 2.0);
+        window(limiter, FAST);
+        assertThat(limiter.getLimit()).isEqualTo(5);
+
+        window(limiter, SLOW);
+        assertThat(limiter.getLimit()).isEqualTo(4);
+        assertThat(limiter.getLastAverageMillis()).isEqualTo(5);
+
+        for (int i = 0; i < 10; i++) {
+            window(limiter, SLOW);
+        }
+        assertThat(limiter.getLimit()).isEqualTo(2);
+    }
+
+    @Test
+    void neverGrowsPastTheMaximum() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(3, 1, 4, WINDOW, 2.0);
+        limiter.tryAcquire();
+        limiter.tryAcquire();
+
+        for (int i = 0; i < 5; i++) {
+            window(limiter, FAST);
+        }
+
+        assertThat(limiter.getLimit()).isEqualTo(4);
+    }
+
+    /**
+     * Complete one window of requests with the given latency
+     */
+    private static void window(AdaptiveConcurrencyLimiter limiter, long latencyNanos) {
+        for (int i = 0; i < WINDOW; i++) {
+            assertThat(limiter.tryAcquire()).isTrue();
+            limiter.release(latencyNanos);
+        }
+    }
+}
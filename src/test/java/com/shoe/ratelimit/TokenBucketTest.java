@@ -0,0 +1,64 @@
+package com.shoe.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TokenBucketTest {
+
+    @Test
+    void burstIsAvailableAtOnceThenRefused() {
+        TokenBucket bucket = new TokenBucket(1, 3);
+
+        assertThat(bucket.isFull()).isTrue();
+        for (int i = 0; i < 3; i++) {
+            assertThat(bucket.tryAcquire()).isTrue();
+        }
+        assertThat(bucket.tryAcquire()).isFalse();
+        assertThat(bucket.isFull()).isFalse();
+        assertThat(bucket.nanosUntilAvailable())
+                .isPositive()
+                .isLessThanOrEqualTo(TimeUnit.SECONDS.toNanos(1));
+    }
+
+    @Test
+    void tokensRefillOverTime() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(50, 1);
+
+        assertThat(bucket.tryAcquire()).isTrue();
+        assertThat(bucket.tryAcquire()).isFalse();
+        Thread.sleep(TimeUnit.NANOSECONDS.toMillis(bucket.nanosUntilAvailable()) + 5);
+        assertThat(bucket.tryAcquire()).isTrue();
+    }
+
+    @Test
+    void concurrentCallersNeverExceedTheBurst() throws InterruptedException {
+        // one token per 10 s: nothing refills while the test runs
+        TokenBucket bucket = new TokenBucket(0.1, 50);
+        AtomicInteger granted = new AtomicInteger();
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 8_000; i++) {
+            callers.execute(() -> {
+                if (bucket.tryAcquire()) {
+                    granted.incrementAndGet();
+                }
+            });
+        }
+        callers.shutdown();
+        assertThat(callers.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(granted.get()).isEqualTo(50);
+    }
+
+    @Test
+    void rejectsNonPositiveRateOrBurst() {
+        assertThatThrownBy(() -> new TokenBucket(0, 1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new TokenBucket(1, 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,81 @@
+package com.shoe.service;
+
+import com.shoe.entity.Category;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.ref.Reference;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Retained heap of a snapshot holding a million products, measured as the
+ * heap still in use after GC with the snapshot loaded minus the heap in use
+ * before it was built
+ */
+class CatalogSnapshotFootprintTest {
+
+    private static final int PRODUCTS = 1_000_000;
+
+    private static final int CATEGORIES = 200;
+
+    /** Columns, sort indexes and the code and name strings; a product entity alone is larger */
+    private static final long MAX_BYTES_PER_PRODUCT = 300;
+
+    @Test
+    void retainedHeapPerMillionProducts() {
+        long before = usedHeapAfterGc();
+        CatalogSnapshot snapshot = new CatalogSnapshot();
+        load(snapshot);
+        long retained = usedHeapAfterGc() - before;
+
+        assertThat(snapshot.findProducts(null, null, false, PageRequest.of(0, 20)).orElseThrow().getTotalElements())
+                .isEqualTo(PRODUCTS);
+        Reference.reachabilityFence(snapshot);
+
+        long perProduct = retained / PRODUCTS;
+        System.out.printf("Catalog snapshot: %d products retain %d MB (%d bytes per product)%n",
+                PRODUCTS, retained / (1024 * 1024), perProduct);
+        assertThat(perProduct).isLessThan(MAX_BYTES_PER_PRODUCT);
+    }
+
+    /**
+     * Fill the snapshot with generated rows; nothing but the snapshot keeps them afterwards
+     */
+    private static void load(CatalogSnapshot snapshot) {
+        Random random = new Random(7);
+        String[] words = {"Trail", "Alpine", "Harbor", "Meadow", "Canyon", "Summit", "Runner", "Classic", "Suede", "Leather"};
+        long[] ids = new long[PRODUCTS];
+        String[] codes = new String[PRODUCTS];
+        String[] names = new String[PRODUCTS];
+        long[] prices = new long[PRODUCTS];
+        long[] categoryIds = new long[PRODUCTS];
+        for (int i = 0; i < PRODUCTS; i++) {
+            ids[i] = i + 1;
+            codes[i] = "SKU-" + (1_000_000 + i);
+            names[i] = words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)] + " " + (i % 5000);
+            prices[i] = 999 + random.nextInt(50_000);
+            categoryIds[i] = 1 + random.nextInt(CATEGORIES);
+        }
+        Map<Long, Category> categories = new HashMap<>();
+        for (long id = 1; id <= CATEGORIES; id++) {
+            Category category = new Category("Category " + id, null);
+            category.setId(id);
+            categories.put(id, category);
+        }
+        snapshot.install(ids, codes, names, prices, categoryIds, categories);
+    }
+
+    private static long usedHeapAfterGc() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
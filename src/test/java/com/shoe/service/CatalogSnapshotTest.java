@@ -0,0 +1,124 @@
+package com.shoe.service;
+
+import com.shoe.entity.Category;
+import com.shoe.entity.Product;
+import com.shoe.repository.CategoryRepository;
+import com.shoe.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "catalog.snapshot.enabled=true",
+        "spring.datasource.url=jdbc:h2:mem:catalog-snapshot-test"
+})
+class CatalogSnapshotTest {
+
+    @Autowired
+    private CatalogSnapshot catalogSnapshot;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Test
+    void deltasKeepEveryIndexInDatabaseOrder() {
+        Category boots = categoryService.saveCategory(new Category("Boots", null));
+        Category sandals = categoryService.saveCategory(new Category("Sandals", null));
+        Category clogs = categoryService.saveCategory(new Category("Clogs", null));
+        // repeated names and prices, so ties have to break by ID as in the database
+        String[] names = {"Trail", "Alpine", "Harbor", "Alpine", "Meadow", "Canyon", "Trail", "Summit"};
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < names.length; i++) {
+            Category category = i % 3 == 0 ? boots : i % 3 == 1 ? sandals : clogs;
+            BigDecimal price = new BigDecimal((10 + (i * 7) % 5) + ".50");
+            ids.add(productService.saveProduct(new Product("SNAP-" + i, names[i], price, reference(category))).getId());
+        }
+        assertMatchesDatabase();
+
+        Product moved = new Product("SNAP-2", "Zephyr", new BigDecimal("99.99"), reference(boots));
+        moved.setId(ids.get(2));
+        productService.saveProduct(moved);
+        productService.deleteProduct(ids.get(4));
+        assertMatchesDatabase();
+
+        // a rename moves the category's rows in the category-name index
+        sandals.setName("Aqua");
+        categoryService.saveCategory(sandals);
+        Category empty = categoryService.saveCategory(new Category("Empty", null));
+        categoryService.deleteCategory(empty.getId());
+        assertMatchesDatabase();
+    }
+
+    @Test
+    void deltasCommittedBeforeLoadAreReplayed() {
+        CatalogSnapshot snapshot = new CatalogSnapshot();
+        ReflectionTestUtils.setField(snapshot, "productRepository", productRepository);
+        ReflectionTestUtils.setField(snapshot, "categoryRepository", categoryRepository);
+        Category category = categoryService.saveCategory(new Category("Loafers", null));
+        Product kept = productService.saveProduct(new Product("EARLY-1", "Penny", new BigDecimal("40.00"), reference(category)));
+        Product deleted = productService.saveProduct(new Product("EARLY-2", "Tassel", new BigDecimal("45.00"), reference(category)));
+
+        // committed after the load read its rows: a new product and a delete the read did not see
+        Product late = new Product("LATE-1", "Driver", new BigDecimal("50.00"), category);
+        late.setId(deleted.getId() + 1000);
+        snapshot.productSaved(late);
+        snapshot.productDeleted(deleted.getId());
+        assertThat(snapshot.findProduct(late.getId())).isEmpty();
+
+        snapshot.load();
+
+        assertThat(snapshot.findProduct(kept.getId()).orElseThrow()).isPresent();
+        assertThat(snapshot.findProduct(late.getId()).orElseThrow()).isPresent();
+        assertThat(snapshot.findProduct(deleted.getId()).orElseThrow()).isEmpty();
+    }
+
+    private void assertMatchesDatabase() {
+        for (String property : List.of("id", "name", "code", "price", "category.name")) {
+            for (Sort.Direction direction : Sort.Direction.values()) {
+                Sort sort = Sort.by(direction, property);
+                List<Long> expected = idsOf(productRepository.findAllBy(
+                        PageRequest.of(0, 1000, sort.and(Sort.by(direction, "id")))));
+                List<Long> actual = idsOf(catalogSnapshot.findProducts(null, null, false, PageRequest.of(0, 1000, sort))
+                        .orElseThrow().getContent());
+                assertThat(actual).as("order by %s %s", property, direction).isEqualTo(expected);
+            }
+        }
+        for (Category category : categoryRepository.findAllByOrderByNameAsc()) {
+            List<Long> expected = idsOf(productRepository.findByCategoryId(category.getId(),
+                    PageRequest.of(0, 1000, Sort.by("name", "id"))));
+            List<Long> actual = idsOf(catalogSnapshot.findProductsByCategory(category.getId()).orElseThrow());
+            assertThat(actual).as("products of %s", category.getName()).isEqualTo(expected);
+        }
+        assertThat(catalogSnapshot.findAllCategories().orElseThrow())
+                .extracting(Category::getName)
+                .isEqualTo(categoryRepository.findAllByOrderByNameAsc().stream().map(Category::getName).toList());
+    }
+
+    private static Category reference(Category category) {
+        Category reference = new Category();
+        reference.setId(category.getId());
+        return reference;
+    }
+
+    private static List<Long> idsOf(List<Product> products) {
+        return products.stream().map(Product::getId).toList();
+    }
+}
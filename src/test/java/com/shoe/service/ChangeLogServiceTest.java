@@ -0,0 +1,84 @@
+package com.shoe.service;
+
+import com.shoe.entity.ChangeLog;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "outbox.relay.interval-ms=50",
+        "outbox.relay.batch-size=7",
+        "spring.datasource.url=jdbc:h2:mem:change-log-test"
+})
+class ChangeLogServiceTest {
+
+    private static final String ENTITY_TYPE = "Feed";
+
+    private static final int CHANGES = 200;
+
+    @Autowired
+    private ChangeLogService changeLogService;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void feedFollowsEveryCommittedChangeOnceInPublishOrder() throws Exception {
+        // concurrent business transactions; every tenth one rolls back and must leave no entry
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        ExecutorService writers = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < CHANGES; i++) {
+            long entityId = i;
+            writers.execute(() -> transactionTemplate.executeWithoutResult(status -> {
+                outboxService.deleted(ENTITY_TYPE, entityId);
+                if (entityId % 10 == 0) {
+                    status.setRollbackOnly();
+                }
+            }));
+        }
+        writers.shutdown();
+        assertThat(writers.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+        int committed = CHANGES - CHANGES / 10;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        List<Long> feed = feed();
+        while (feed.size() < committed && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+            feed = feed();
+        }
+        assertThat(feed).hasSize(committed).doesNotHaveDuplicates().noneMatch(id -> id % 10 == 0);
+    }
+
+    /**
+     * Entity IDs of this test's entries, paging the feed by publish sequence
+     */
+    private List<Long> feed() {
+        List<Long> feed = new ArrayList<>();
+        Long after = 0L;
+        List<ChangeLog> page;
+        while (!(page = changeLogService.getChangesAfter(after, 30)).isEmpty()) {
+            for (ChangeLog entry : page) {
+                assertThat(entry.getPublishSeq()).isGreaterThan(after);
+                if (ENTITY_TYPE.equals(entry.getEntityType())) {
+                    assertThat(entry.getOperation()).isEqualTo(ChangeLog.DELETE);
+                    feed.add(entry.getEntityId());
+                }
+                after = entry.getPublishSeq();
+            }
+        }
+        return feed;
+    }
+}
@@ -0,0 +1,134 @@
+package com.shoe.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BigDecimal prices against scaled long cents on the in-memory listing paths:
+ * sorting rows by price, bucketing prices for the facets and filtering a
+ * price range. Run with {@code mvn -Pbenchmarks verify -DskipTests}; the
+ * report includes the GC profiler's bytes allocated per operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PriceCentsBenchmark {
+
+    @Param({"10000", "100000"})
+    private int rows;
+
+    private BigDecimal[] decimalPrices;
+
+    private long[] centPrices;
+
+    private BigDecimal[] decimalBounds;
+
+    private Integer[] boxedRows;
+
+    private int[] unsortedRows;
+
+    private final BigDecimal minPrice = new BigDecimal("25.00");
+
+    private final BigDecimal maxPrice = new BigDecimal("150.00");
+
+    @Setup
+    public void prices() {
+        Random random = new Random(42);
+        decimalPrices = new BigDecimal[rows];
+        centPrices = new long[rows];
+        for (int i = 0; i < rows; i++) {
+            // DECIMAL(12, 2) prices, mostly under 1,000.00 with many repeats
+            long cents = 99 + random.nextInt(100_000);
+            decimalPrices[i] = BigDecimal.valueOf(cents, 2);
+            centPrices[i] = cents;
+        }
+        decimalBounds = ProductFacets.priceBounds();
+        boxedRows = new Integer[rows];
+        unsortedRows = new int[rows];
+        for (int i = 0; i < rows; i++) {
+            boxedRows[i] = i;
+            unsortedRows[i] = i;
+        }
+    }
+
+    // both sorts start from a copy of the unsorted row numbers, as a listing request does
+
+    @Benchmark
+    public Integer[] sortByBigDecimal() {
+        Integer[] sorted = boxedRows.clone();
+        Arrays.sort(sorted, Comparator.<Integer, BigDecimal>comparing(row -> decimalPrices[row])
+                .thenComparing(Comparator.naturalOrder()));
+        return sorted;
+    }
+
+    @Benchmark
+    public int[] sortByCents() {
+        int[] sorted = unsortedRows.clone();
+        PriceCents.sortRows(sorted, 0, rows, centPrices);
+        return sorted;
+    }
+
+    @Benchmark
+    public long[] histogramBigDecimal() {
+        long[] counts = new long[decimalBounds.length + 1];
+        for (BigDecimal price : decimalPrices) {
+            int bucket = 0;
+            while (bucket < decimalBounds.length && price.compareTo(decimalBounds[bucket]) >= 0) {
+                bucket++;
+            }
+            counts[bucket]++;
+        }
+        return counts;
+    }
+
+    @Benchmark
+    public long[] histogramCents() {
+        long[] counts = new long[ProductFacets.PRICE_BUCKET_BOUNDS.length + 1];
+        for (long price : centPrices) {
+            counts[PriceCents.bucketOf(price, ProductFacets.PRICE_BUCKET_BOUNDS)]++;
+        }
+        return counts;
+    }
+
+    @Benchmark
+    public int rangeBigDecimal() {
+        int matches = 0;
+        for (BigDecimal price : decimalPrices) {
+            if (price.compareTo(minPrice) >= 0 && price.compareTo(maxPrice) <= 0) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+
+    @Benchmark
+    public int rangeCents() {
+        long min = PriceCents.minBound(minPrice);
+        long max = PriceCents.maxBound(maxPrice);
+        int matches = 0;
+        for (long price : centPrices) {
+            if (price >= min && price <= max) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+}